@@ -0,0 +1,217 @@
+import java.io.BufferedOutputStream;   // Streaming text output
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;            // Packed records
+import java.nio.channels.Channels;     // Output channel
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;           // Chunks in flight, oldest first
+import java.util.HashSet;              // Minlex forms written so far (--unique)
+import java.util.SplittableRandom;     // Reproducible per-chunk streams
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless mass generation: sudoku --generate N [--difficulty D] [--clues C] [--seed S]
+// [--variants V] [--unique] [--format F] [--threads T] [--out FILE]. With V > 1 each generated puzzle is followed
+// by V - 1 random symmetric variants of it (GridTransformer), which cost nanoseconds
+// instead of a generation run and keep the difficulty. With --unique no two lines are
+// the same puzzle up to symmetry: workers compute each puzzle's minlex form
+// (Canonicalizer) and the writer drops puzzles whose form it has already written.
+// Puzzles are made in chunks on all cores; chunk k draws from the k-th stream split off
+// the master seed, so the output depends only on the seed and not on the thread count or
+// scheduling. Chunks are written in order as they complete, to FILE or standard output:
+// one 81-character line per puzzle ('.' for blanks) with --format text (the default),
+// PuzzleCodec records behind a PuzzleWriter header with --format nibbles or mask, or
+// records with solution and rating appended to the PuzzleStore FILE with --format store.
+class BatchGenerator {
+    static final int CHUNK = 256;                       // Puzzles per task
+    static final int TEXT = -1;                         // --format text; else a PuzzleCodec format
+    static final int STORE = -2;                        // --format store
+    private static final int LINE = SudokuBoard.CELLS + 1;
+
+    // Output of one task
+    private static final class Chunk {
+        final byte[] data;                              // The chunk's lines or packed records
+        final int[] ends;                               // End of each puzzle in data
+        final String[] keys;                            // Packed minlex form per puzzle, null without --unique
+
+        Chunk(int size, int format, boolean unique) {
+            data = new byte[size * (format == TEXT ? LINE : format == STORE ? PuzzleStore.RECORD_BYTES : PuzzleCodec.MAX_RECORD_BYTES)];
+            ends = new int[size];
+            keys = unique ? new String[size] : null;
+        }
+    }
+
+    static int run(String[] args) throws IOException, InterruptedException {
+        long count = -1;
+        Difficulty difficulty = null;                   // Any difficulty
+        int clues = 0;                                  // Minimum clues, 0 = as few as possible
+        long seed = System.nanoTime();
+        int variants = 1;                               // Lines per generated puzzle
+        boolean unique = false;                         // Drop puzzles equivalent to earlier ones
+        int format = TEXT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--generate":   count = Long.parseLong(args[++i]); break;
+                    case "--difficulty": difficulty = Difficulty.fromLabel(capitalize(args[++i])); break;
+                    case "--clues":      clues = Integer.parseInt(args[++i]); break;
+                    case "--seed":       seed = Long.parseLong(args[++i]); break;
+                    case "--variants":   variants = Integer.parseInt(args[++i]); break;
+                    case "--unique":     unique = true; break;
+                    case "--format":     format = formatOf(args[++i]); break;
+                    case "--threads":    threads = Integer.parseInt(args[++i]); break;
+                    case "--out":        out = args[++i]; break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (count < 0 || clues < 0 || clues > SudokuBoard.CELLS || variants < 1 || threads < 1) {
+                throw new IllegalArgumentException("Bad count, clue count, variant count or thread count");
+            }
+            if (unique && variants > 1) throw new IllegalArgumentException("--unique would drop every variant");
+            if (format == STORE && out == null) throw new IllegalArgumentException("--format store needs --out");
+        } catch (RuntimeException e) { // Missing value, bad number or unknown name
+            System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.err.println("Usage: --generate N [--difficulty easy|medium|hard|expert] [--clues C] [--seed S] [--variants V] [--unique] [--format text|nibbles|mask|store] [--threads T] [--out FILE]");
+            return 2;
+        }
+
+        System.err.println("Generating " + count + " puzzles with seed " + seed + " on " + threads + " threads");
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        SplittableRandom master = new SplittableRandom(seed);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        HashSet<String> seen = new HashSet<>();
+        long chunks = (count + CHUNK - 1) / CHUNK;      // Enough unless duplicates are dropped
+        long submitted = 0, written = 0, duplicates = 0;
+        try (WritableByteChannel channel = format == STORE ? null : out == null ? Channels.newChannel(System.out)
+                : FileChannel.open(Paths.get(out), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             PuzzleStore store = format == STORE ? new PuzzleStore(Paths.get(out), true) : null) {
+            OutputStream text = format == TEXT ? new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16) : null;
+            PuzzleWriter packed = channel != null && format != TEXT ? new PuzzleWriter(channel, format, count) : null;
+            while (written < count) {
+                // Keep a bounded window of chunks running so memory stays flat for any count
+                while ((unique || submitted < chunks) && inFlight.size() < 2 * threads) {
+                    int size = (int) Math.min(CHUNK, unique ? CHUNK : count - submitted * CHUNK);
+                    SplittableRandom random = master.split(); // Split in chunk order
+                    Difficulty target = difficulty;
+                    int minClues = clues;
+                    int perPuzzle = variants;
+                    int encoding = format;
+                    boolean canonical = unique;
+                    inFlight.add(executor.submit(() -> generateChunk(random, size, target, minClues, perPuzzle, encoding, canonical)));
+                    submitted++;
+                }
+                Chunk chunk = inFlight.remove().get(); // Oldest chunk first keeps the output ordered
+                for (int i = 0; i < chunk.ends.length && written < count; i++) {
+                    if (unique && !seen.add(chunk.keys[i])) {
+                        duplicates++;
+                        continue;
+                    }
+                    int from = i == 0 ? 0 : chunk.ends[i - 1];
+                    if (text != null) {
+                        text.write(chunk.data, from, chunk.ends[i] - from);
+                    } else if (packed != null) {
+                        packed.writeEncoded(chunk.data, from, chunk.ends[i] - from, 1);
+                    } else {
+                        store.appendEncoded(chunk.data, from, chunk.ends[i] - from);
+                    }
+                    written++;
+                }
+            }
+            if (text != null) {
+                text.flush();
+            } else if (packed != null) {
+                packed.close(); // Also patches the count into the header
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d puzzles in %.2f s (%.0f puzzles/s)%n", count, seconds, count / seconds);
+        if (unique) System.err.println(duplicates + " duplicates dropped");
+        return 0;
+    }
+
+    // Generate one chunk as text lines or packed records
+    private static Chunk generateChunk(SplittableRandom random, int size, Difficulty difficulty, int minClues,
+                                       int variants, int format, boolean unique) {
+        SudokuGenerator generator = new SudokuGenerator(random);
+        GridTransformer transformer = new GridTransformer();
+        Canonicalizer canonicalizer = unique ? new Canonicalizer() : null;
+        int[] canonical = new int[SudokuBoard.CELLS];
+        int[] cells = new int[SudokuBoard.CELLS];
+        int[] solutionCells = new int[SudokuBoard.CELLS];
+        DifficultyRater rater = format == STORE && difficulty == null ? new DifficultyRater() : null;
+        Difficulty rating = null;                       // Of the last generated puzzle, for --format store
+        byte[] packedKey = new byte[PuzzleCodec.NIBBLE_BYTES];
+        int[][] base = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+        int[][] puzzle = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+        int[][] solution = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+        int[][] variantSolution = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+        Chunk chunk = new Chunk(size, format, unique);
+        ByteBuffer records = ByteBuffer.wrap(chunk.data);
+        for (int i = 0; i < size; i++) {
+            if (i % variants == 0) {
+                if (difficulty == null) {
+                    generator.generate(base, solution, SudokuBoard.CELLS - minClues);
+                    if (rater != null) rating = rater.rate(base);
+                } else {
+                    rating = generator.generate(base, solution, difficulty, minClues);
+                }
+                transformer.reset(); // The generated puzzle itself comes first
+            } else {
+                transformer.randomize(random); // Next variant of the last generated puzzle
+            }
+            transformer.apply(base, puzzle);
+            for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+                cells[cell] = puzzle[cell / SudokuBoard.SIZE][cell % SudokuBoard.SIZE];
+            }
+            if (format == TEXT) {
+                for (int num : cells) {
+                    records.put((byte) (num == 0 ? '.' : '0' + num));
+                }
+                records.put((byte) '\n');
+            } else if (format == STORE) {
+                transformer.apply(solution, variantSolution);
+                for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+                    solutionCells[cell] = variantSolution[cell / SudokuBoard.SIZE][cell % SudokuBoard.SIZE];
+                }
+                PuzzleStore.encode(cells, solutionCells, rating, records);
+            } else {
+                PuzzleCodec.encode(format, cells, records);
+            }
+            chunk.ends[i] = records.position();
+            if (unique) { // Key: the minlex form packed into 41 one-byte chars
+                canonicalizer.canonicalize(cells, canonical);
+                PuzzleCodec.encode(PuzzleCodec.NIBBLES, canonical, ByteBuffer.wrap(packedKey));
+                chunk.keys[i] = new String(packedKey, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return chunk;
+    }
+
+    private static int formatOf(String name) {
+        switch (name) {
+            case "text":    return TEXT;
+            case "nibbles": return PuzzleCodec.NIBBLES;
+            case "mask":    return PuzzleCodec.CLUE_MASK;
+            case "store":   return STORE;
+            default: throw new IllegalArgumentException("Unknown format: " + name);
+        }
+    }
+
+    // "expert" -> "Expert", to match the GUI labels
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1).toLowerCase();
+    }
+}
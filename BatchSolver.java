@@ -0,0 +1,318 @@
+import java.io.BufferedInputStream;    // Streaming input, marked to look at the header
+import java.io.BufferedOutputStream;   // Streaming output
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;     // Packed input goes through a PuzzleReader
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;            // For the input and output files
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue; // Bounded hand-offs between the stages
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;     // Batch solved
+
+// Headless solving of puzzle files: sudoku --solve [IN] [--out FILE] [--threads T]
+// [--solver backtracking|dancing-links|parallel|portfolio] [--count LIMIT]. Reads one
+// 81-character puzzle per line ('.' or '0' for blanks) from IN or standard input and
+// writes one solution line per puzzle, in input order, to FILE or standard output. With
+// --count the line is instead the number of solutions, counted up to LIMIT by the
+// ParallelSolver whatever --solver says (0 for unsolvable puzzles). IN may also be a
+// packed file written by --generate --format nibbles or mask; it is recognised by its
+// header and read through a PuzzleReader, with one solution line per grid. Unsolvable
+// puzzles give "unsolvable", malformed lines "invalid" and puzzles the engine failed on
+// "error"; blank lines are skipped. Anything worse stops the run with a message.
+// Only the classic size is solved here: lines of another board size count as invalid.
+// A reader thread cuts the input into batches and hands each to two bounded queues: the
+// work queue feeding the solver threads, and the order queue the writer (calling thread)
+// drains, waiting for each batch in turn. The order queue's capacity caps the batches in
+// memory, so files of any length stream through in constant space.
+class BatchSolver {
+    static final int BATCH = 256;                       // Lines per batch
+    private static final byte[] UNSOLVABLE = "unsolvable\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID = "invalid\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR = "error\n".getBytes(StandardCharsets.US_ASCII);
+
+    // A slice of the input, solved by one worker
+    private static final class Batch {
+        final String[] lines = new String[BATCH];       // Text input
+        final int[] cells;                              // Packed input: the decoded grids, else null
+        int size = 0;
+        final byte[] output = new byte[BATCH * (SudokuBoard.CELLS + 1)];
+        int length = 0;                                 // Bytes used in output
+        final long[] nanos = new long[BATCH];           // Solve time per puzzle, -1 = not a puzzle
+        int unsolvable = 0, invalid = 0, errors = 0;
+        RuntimeException firstError = null;             // Of the lines marked "error"
+        Throwable failure = null;                       // Stopped the worker, output incomplete
+        final CountDownLatch solved = new CountDownLatch(1); // Counted down even if the worker fails
+
+        Batch(boolean packed) {
+            cells = packed ? new int[BATCH * SudokuBoard.CELLS] : null;
+        }
+    }
+
+    private static final Batch END = new Batch(false);       // Marks the end of the input in both queues
+
+    private final BlockingQueue<Batch> work;            // Reader -> solvers
+    private final BlockingQueue<Batch> order;           // Reader -> writer, in input order
+    private final SolverType type;
+    private final long countLimit;                      // Solutions to count up to, 0 to solve instead
+    private volatile IOException readError = null;
+
+    private BatchSolver(SolverType type, long countLimit, int threads) {
+        this.type = type;
+        this.countLimit = countLimit;
+        work = new ArrayBlockingQueue<>(2 * threads);
+        order = new ArrayBlockingQueue<>(4 * threads);
+    }
+
+    static int run(String[] args) throws IOException, InterruptedException {
+        String in = null, out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        SolverType type = SolverType.DANCING_LINKS;
+        long countLimit = 0;
+        try {
+            for (int i = 1; i < args.length; i++) { // args[0] is --solve
+                switch (args[i]) {
+                    case "--out":     out = args[++i]; break;
+                    case "--threads": threads = Integer.parseInt(args[++i]); break;
+                    case "--solver":  type = SolverType.valueOf(args[++i].toUpperCase().replace('-', '_')); break;
+                    case "--count":
+                        countLimit = Long.parseLong(args[++i]);
+                        if (countLimit < 1) throw new IllegalArgumentException("Bad count limit: " + countLimit);
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || in != null) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        in = args[i];
+                }
+            }
+            if (threads < 1) throw new IllegalArgumentException("Bad thread count: " + threads);
+        } catch (RuntimeException e) { // Missing value, bad number or unknown solver
+            System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.err.println("Usage: --solve [IN] [--out FILE] [--threads T] [--solver backtracking|dancing-links|parallel|portfolio] [--count LIMIT]");
+            return 2;
+        }
+
+        BatchSolver solver = new BatchSolver(type, countLimit, threads);
+        long start = System.nanoTime();
+        try (InputStream input = new BufferedInputStream(in == null || in.equals("-")
+                     ? System.in : Files.newInputStream(Paths.get(in)), 1 << 16);
+             OutputStream stream = out == null ? System.out : Files.newOutputStream(Paths.get(out));
+             BufferedOutputStream writer = new BufferedOutputStream(stream, 1 << 16)) {
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = solver.new Worker(i);
+                workers[i].start();
+            }
+            solver.new Reader(input).start();
+            LatencyHistogram latency = new LatencyHistogram();
+            long unsolvable = 0, invalid = 0, errors = 0;
+
+            for (Batch batch = solver.order.take(); batch != END; batch = solver.order.take()) {
+                batch.solved.await();
+                if (batch.failure != null) {
+                    writer.flush(); // Keep the lines solved so far
+                    System.err.println("Solver failed, stopping: " + batch.failure);
+                    return 1;
+                }
+                if (batch.firstError != null && errors == 0) {
+                    System.err.println("Solver error (line marked \"error\"): " + batch.firstError);
+                }
+                writer.write(batch.output, 0, batch.length);
+                for (int i = 0; i < batch.size; i++) {
+                    if (batch.nanos[i] >= 0) latency.record(batch.nanos[i]);
+                }
+                unsolvable += batch.unsolvable;
+                invalid += batch.invalid;
+                errors += batch.errors;
+            }
+            writer.flush();
+            if (solver.readError != null) throw solver.readError;
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("%d puzzles in %.2f s (%.0f puzzles/s), %d unsolvable, %d invalid lines, %d errors%n",
+                    latency.count(), seconds, latency.count() / seconds, unsolvable, invalid, errors);
+            System.err.printf("Solve latency (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                    latency.percentile(50) / 1e3, latency.percentile(90) / 1e3, latency.percentile(99) / 1e3,
+                    latency.percentile(99.9) / 1e3, latency.max() / 1e3);
+        }
+        return 0;
+    }
+
+    // Cuts the input into batches and queues each for the solvers and the writer
+    class Reader extends Thread {
+        private final InputStream input;
+
+        Reader(InputStream input) {
+            super("Batch reader");
+            setDaemon(true);
+            this.input = input;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (isPacked()) {
+                    readPacked(new PuzzleReader(Channels.newChannel(input)));
+                } else {
+                    readText(new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII), 1 << 16));
+                }
+            } catch (IOException e) {
+                readError = e; // Reported by the writer once the batches read so far are out
+            } catch (IllegalArgumentException e) { // Bad digit in a packed grid
+                readError = new IOException(e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                order.put(END);
+                work.put(END); // Each worker puts it back for the next one before stopping
+            } catch (InterruptedException e) {
+                // Shutting down anyway
+            }
+        }
+
+        // True if the input starts with the header of a packed file; reads nothing
+        private boolean isPacked() throws IOException {
+            input.mark(4);
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = input.read();
+                if (b < 0) break; // Too short for a header
+                magic = magic << 8 | b;
+            }
+            input.reset();
+            return magic == PuzzleCodec.MAGIC;
+        }
+
+        private void readText(BufferedReader reader) throws IOException, InterruptedException {
+            Batch batch = new Batch(false);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                batch.lines[batch.size++] = line;
+                if (batch.size == BATCH) {
+                    submit(batch);
+                    batch = new Batch(false);
+                }
+            }
+            if (batch.size > 0) submit(batch);
+        }
+
+        // Grids are decoded straight into the batch
+        private void readPacked(PuzzleReader reader) throws IOException, InterruptedException {
+            int[] cells = new int[SudokuBoard.CELLS];
+            Batch batch = new Batch(true);
+            while (reader.read(cells)) {
+                System.arraycopy(cells, 0, batch.cells, batch.size++ * SudokuBoard.CELLS, SudokuBoard.CELLS);
+                if (batch.size == BATCH) {
+                    submit(batch);
+                    batch = new Batch(true);
+                }
+            }
+            if (batch.size > 0) submit(batch);
+        }
+
+        private void submit(Batch batch) throws InterruptedException {
+            order.put(batch); // Blocks while the writer is too far behind
+            work.put(batch);
+        }
+    }
+
+    // Solves batches with its own board and engine
+    class Worker extends Thread {
+        private final SudokuBoard board = new SudokuBoard();
+        private final SudokuEngine engine = type.create(board);
+        private final ParallelSolver counter = countLimit > 0 ? new ParallelSolver(board) : null; // For --count
+        private final int[][] unpacked = new int[SudokuBoard.SIZE][SudokuBoard.SIZE]; // Grid of packed input
+
+        Worker(int index) {
+            super("Batch solver " + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Batch batch;
+                while ((batch = work.take()) != END) {
+                    try {
+                        solve(batch);
+                    } catch (Throwable e) { // The writer reports it instead of waiting forever
+                        batch.failure = e;
+                        throw e;
+                    } finally {
+                        batch.solved.countDown();
+                    }
+                }
+                work.put(END); // Pass the end marker on to the next worker
+            } catch (InterruptedException e) {
+                // Shutting down
+            }
+        }
+
+        private void solve(Batch batch) {
+            byte[] output = batch.output;
+            int p = 0;
+            for (int i = 0; i < batch.size; i++) {
+                int[][] grid = batch.cells == null ? SudokuBoard.parse(batch.lines[i]) : unpack(batch.cells, i);
+                if (grid == null || grid.length != SudokuBoard.SIZE) {
+                    batch.nanos[i] = -1;
+                    batch.invalid++;
+                    System.arraycopy(INVALID, 0, output, p, INVALID.length);
+                    p += INVALID.length;
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean solved;
+                long count = 0;
+                try {
+                    if (!board.load(grid)) {
+                        solved = false; // Givens in conflict
+                    } else if (counter != null) {
+                        count = counter.countSolutions(countLimit);
+                        solved = count > 0;
+                    } else {
+                        solved = engine.solve();
+                    }
+                } catch (RuntimeException e) { // A bug on one puzzle must not stop the rest
+                    batch.nanos[i] = -1;
+                    batch.errors++;
+                    if (batch.firstError == null) batch.firstError = e;
+                    System.arraycopy(ERROR, 0, output, p, ERROR.length);
+                    p += ERROR.length;
+                    continue;
+                }
+                batch.nanos[i] = System.nanoTime() - start;
+                if (counter != null) {
+                    for (byte b : (count + "\n").getBytes(StandardCharsets.US_ASCII)) {
+                        output[p++] = b;
+                    }
+                    if (!solved) batch.unsolvable++;
+                    continue;
+                }
+                if (!solved) {
+                    batch.unsolvable++;
+                    System.arraycopy(UNSOLVABLE, 0, output, p, UNSOLVABLE.length);
+                    p += UNSOLVABLE.length;
+                    continue;
+                }
+                for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+                    output[p++] = (byte) ('0' + board.get(cell));
+                }
+                output[p++] = '\n';
+            }
+            batch.length = p;
+        }
+
+        // Grid number index of a packed batch, in the worker's own array
+        private int[][] unpack(int[] cells, int index) {
+            for (int row = 0; row < SudokuBoard.SIZE; row++) {
+                System.arraycopy(cells, (index * SudokuBoard.SIZE + row) * SudokuBoard.SIZE, unpacked[row], 0, SudokuBoard.SIZE);
+            }
+            return unpacked;
+        }
+    }
+}
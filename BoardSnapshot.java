@@ -0,0 +1,50 @@
+import java.util.concurrent.atomic.AtomicIntegerArray; // Lock-free per-cell slots
+
+// Board state shared between a solver thread, which writes every event into it, and the
+// GUI, which samples it at a fixed frame rate. Each cell holds its number and what the
+// solver is doing with it, packed into one int so a write is a single release store.
+class BoardSnapshot {
+    static final int EMPTY = 0;         // Nothing shown
+    static final int TRY = 1;           // Number being tried
+    static final int PROPAGATED = 2;    // Number deduced by propagation
+    static final int BACKTRACK = 3;     // Number just taken back
+
+    private final int boardSize;                        // Cells per row
+    private final AtomicIntegerArray cells;
+    private volatile boolean dirty = false;             // Set on every write, cleared by the reader
+
+    BoardSnapshot(int boardSize) {
+        this.boardSize = boardSize;
+        cells = new AtomicIntegerArray(boardSize * boardSize);
+    }
+
+    void set(int row, int col, int num, int kind) {
+        setCell(row * boardSize + col, num | kind << 8);
+    }
+
+    // Store an already packed state
+    void setCell(int cell, int state) {
+        cells.lazySet(cell, state);
+        dirty = true;
+    }
+
+    // Packed state of a cell: decode with numOf and kindOf
+    int get(int cell) {
+        return cells.get(cell);
+    }
+
+    static int numOf(int state) {
+        return state & 0xFF;
+    }
+
+    static int kindOf(int state) {
+        return state >>> 8;
+    }
+
+    // True if anything was written since the last call; the reader then scans for changes
+    boolean takeDirty() {
+        if (!dirty) return false;
+        dirty = false;
+        return true;
+    }
+}
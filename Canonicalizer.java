@@ -0,0 +1,343 @@
+import java.util.Arrays;              // For growing the state buffers
+
+// Maps a puzzle to its minimal lexicographic representative (minlex form) under the
+// Sudoku symmetries of GridTransformer: the smallest row-major string, blanks as 0, over
+// all 2 * 6^8 geometric transforms, with digits relabelled 1, 2, 3... in order of first
+// appearance. Two puzzles are the same puzzle exactly when their minlex forms are equal.
+// Instead of trying all 3.4 million transforms, the form is built one output row at a
+// time: every partial transform (transposition, column order, source rows so far, digit
+// labels so far) whose rows are not yet beaten is kept, and only those are extended by a
+// row. Most candidates drop out within the first rows. The first two rows are built in
+// one pass, since every candidate shares the same first row, and a column order is given
+// up stack by stack as soon as its second row loses. Classic 9x9 grids only. Not
+// thread-safe; one per thread.
+class Canonicalizer {
+    private static final int SIZE = SudokuBoard.SIZE;
+    private static final int CELLS = SudokuBoard.CELLS;
+    private static final int BOX = SudokuBoard.SUBGRID_SIZE;
+    private static final int[][] COLUMN_ORDERS = buildColumnOrders(); // The 6^4 column permutations
+    private static final int MAP = SIZE + 2;            // Digit map entries per state: labels of 1..9, then the next label
+
+    private final int[][] source = new int[2][CELLS];   // The puzzle and its transpose
+    private final int[] result = new int[CELLS];        // Minlex rows found so far
+    private final int[] row = new int[SIZE];            // Row being compared
+    private final int[] firstMap = new int[MAP];        // Digit labels after the first row
+    private final int[] firstRows = new int[1];         // Source row of the first output row
+    private final int[] home = new int[SIZE + 1];       // Stack of each digit in the first row, -1 if absent
+    private final int[] position = new int[BOX];        // Position of each stack in the stack order being tried
+    private final int[] firstLabel = new int[BOX];      // First label of each stack's first-row clues
+    private final int[][] chosen = new int[BOX][];      // Inner orders chosen for the stacks placed so far
+    private final int[] fresh = new int[MAP];           // Labels given to new digits in the row being compared
+    private final int[] clues = new int[BOX];           // Clues per stack of a source row
+    private final int[] blanksFirst = new int[BOX];     // Inner orders putting a stack's blanks first, as bitmasks
+
+    // Partial transforms of the current and next level, in flat buffers swapped per row
+    private static final int INITIAL_STATES = 1024;
+    private int[] transposed = new int[INITIAL_STATES], nextTransposed = new int[INITIAL_STATES];
+    private int[] order = new int[INITIAL_STATES], nextOrder = new int[INITIAL_STATES]; // Index in COLUMN_ORDERS
+    private int[] rows = new int[INITIAL_STATES * SIZE], nextRows = new int[INITIAL_STATES * SIZE]; // Source row of each output row
+    private int[] map = new int[INITIAL_STATES * MAP], nextMap = new int[INITIAL_STATES * MAP];     // Source digit -> label, [MAP - 1] = next label
+    private int count, nextCount;
+
+    // Minlex form of a puzzle (row-major, 0 = empty) written to canonical; the arrays may be the same
+    void canonicalize(int[] puzzle, int[] canonical) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            source[0][cell] = puzzle[cell];
+            source[1][(cell % SIZE) * SIZE + cell / SIZE] = puzzle[cell];
+        }
+
+        // First row: its digits are labelled 1, 2, 3... in order, so only the positions of its
+        // clues matter. The best ones have the stacks ordered by clue count with the blanks of
+        // each stack first; only rows and column orders giving that pattern are offered, each
+        // with the second rows of its band.
+        int bestPattern = Integer.MAX_VALUE;
+        for (int t = 0; t < 2; t++) {
+            for (int r = 0; r < SIZE; r++) {
+                bestPattern = Math.min(bestPattern, bestPattern(source[t], r));
+            }
+        }
+        for (int c = 0, label = 1; c < SIZE; c++) {
+            result[c] = (bestPattern & 1 << SIZE - 1 - c) != 0 ? label++ : 0;
+        }
+        nextCount = 0;
+        for (int t = 0; t < 2; t++) {
+            for (int r = 0; r < SIZE; r++) {
+                if (bestPattern(source[t], r) == bestPattern) offerFirstRows(t, r);
+            }
+        }
+        swapLevels();
+
+        // Following rows: extend each surviving candidate by every row its band allows
+        for (int out = 2; out < SIZE; out++) {
+            nextCount = 0;
+            for (int s = 0; s < count; s++) {
+                int base = s * SIZE;
+                if (out % BOX == 0) { // New band: any row of a band not used yet
+                    for (int band = 0; band < BOX; band++) {
+                        if (bandUsed(base, out, band)) continue;
+                        for (int r = band * BOX; r < band * BOX + BOX; r++) {
+                            offer(out, transposed[s], order[s], r, map, s * MAP, rows, base);
+                        }
+                    }
+                } else { // Same band as the row above: any of its rows not used yet
+                    int band = rows[base + out - 1] / BOX;
+                    for (int r = band * BOX; r < band * BOX + BOX; r++) {
+                        if (!rowUsed(base, out, r)) offer(out, transposed[s], order[s], r, map, s * MAP, rows, base);
+                    }
+                }
+            }
+            swapLevels();
+        }
+        System.arraycopy(result, 0, canonical, 0, CELLS);
+    }
+
+    // Same for grids
+    void canonicalize(int[][] puzzle, int[] canonical) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            canonical[cell] = puzzle[cell / SIZE][cell % SIZE];
+        }
+        canonicalize(canonical, canonical);
+    }
+
+    // Compare output row out of a candidate with the best one so far; keep it if not worse
+    private void offer(int out, int t, int o, int r, int[] parentMap, int mapBase, int[] parentRows, int rowBase) {
+        int[] grid = source[t];
+        int[] columns = COLUMN_ORDERS[o];
+        int bestBase = out * SIZE;
+        int label = parentMap[mapBase + MAP - 1];       // Next free label
+        int seen = 0;                                   // Digits first labelled in this row
+        int cmp = nextCount == 0 ? -1 : 0;              // The first candidate of a level always wins
+        for (int c = 0; c < SIZE; c++) {
+            int num = grid[r * SIZE + columns[c]];
+            int value = 0;
+            if (num != 0) {
+                value = parentMap[mapBase + num];
+                if (value == 0) {
+                    if ((seen & 1 << num) == 0) { // New digit: it takes the next label
+                        fresh[num] = label++;
+                        seen |= 1 << num;
+                    }
+                    value = fresh[num];
+                }
+            }
+            row[c] = value;
+            if (cmp == 0) {
+                if (value < result[bestBase + c]) {
+                    cmp = -1;
+                } else if (value > result[bestBase + c]) {
+                    return; // Beaten: drop this candidate
+                }
+            }
+        }
+        if (cmp < 0) { // New best row: every candidate kept so far is beaten
+            System.arraycopy(row, 0, result, bestBase, SIZE);
+            nextCount = 0;
+        }
+
+        if (nextCount == nextTransposed.length) grow();
+        int n = nextCount++;
+        nextTransposed[n] = t;
+        nextOrder[n] = o;
+        if (out > 0) System.arraycopy(parentRows, rowBase, nextRows, n * SIZE, out);
+        nextRows[n * SIZE + out] = r;
+        System.arraycopy(parentMap, mapBase, nextMap, n * MAP, MAP);
+        for (int digits = seen; digits != 0; digits &= digits - 1) {
+            int num = Integer.numberOfTrailingZeros(digits);
+            nextMap[n * MAP + num] = fresh[num];
+        }
+        nextMap[n * MAP + MAP - 1] = label;
+    }
+
+    // Double the next-level buffers (the current level is left as it is)
+    private void grow() {
+        int capacity = nextTransposed.length * 2;
+        nextTransposed = Arrays.copyOf(nextTransposed, capacity);
+        nextOrder = Arrays.copyOf(nextOrder, capacity);
+        nextRows = Arrays.copyOf(nextRows, capacity * SIZE);
+        nextMap = Arrays.copyOf(nextMap, capacity * MAP);
+    }
+
+    // Smallest clue pattern of a source row over all column orders (first column in the top bit)
+    private int bestPattern(int[] grid, int r) {
+        countClues(grid, r);
+        int a = Math.min(clues[0], Math.min(clues[1], clues[2]));
+        int c = Math.max(clues[0], Math.max(clues[1], clues[2]));
+        int b = clues[0] + clues[1] + clues[2] - a - c;
+        return pattern(a) << 2 * BOX | pattern(b) << BOX | pattern(c);
+    }
+
+    // Blanks of a stack first, then its clues
+    private static int pattern(int clueCount) {
+        return (1 << clueCount) - 1;
+    }
+
+    private void countClues(int[] grid, int r) {
+        for (int stack = 0; stack < BOX; stack++) {
+            clues[stack] = 0;
+            for (int i = 0; i < BOX; i++) {
+                if (grid[r * SIZE + stack * BOX + i] != 0) clues[stack]++;
+            }
+        }
+    }
+
+    // Offer the second row for every column order that gives a source row its best
+    // pattern: stacks by rising clue count, each with an inner order that puts its blanks
+    // first. All those first rows are equal, so they are never stored or compared; the
+    // first row's digit labels are set stack by stack as the loops choose inner orders.
+    private void offerFirstRows(int t, int r) {
+        int[] grid = source[t];
+        int[][] lines = GridTransformer.BAND_ORDERS;
+        countClues(grid, r);
+        for (int stack = 0; stack < BOX; stack++) {
+            blanksFirst[stack] = 0;
+            for (int inner = 0; inner < lines.length; inner++) {
+                boolean clueSeen = false, ok = true;
+                for (int i = 0; i < BOX; i++) {
+                    boolean clue = grid[r * SIZE + stack * BOX + lines[inner][i]] != 0;
+                    if (clueSeen && !clue) ok = false;
+                    clueSeen |= clue;
+                }
+                if (ok) blanksFirst[stack] |= 1 << inner;
+            }
+        }
+        Arrays.fill(firstMap, 0);                       // Digits missing from the first row stay unlabelled
+        firstMap[MAP - 1] = clues[0] + clues[1] + clues[2] + 1;
+        firstRows[0] = r;
+        Arrays.fill(home, -1);
+        for (int col = 0; col < SIZE; col++) {
+            if (grid[r * SIZE + col] != 0) home[grid[r * SIZE + col]] = col / BOX;
+        }
+        int band = r - r % BOX;
+        int seconds = (1 << BOX) - 1 & ~(1 << r - band); // The other rows of the band, as a bitmask
+        for (int so = 0; so < lines.length; so++) { // Index arithmetic follows buildColumnOrders
+            int[] stacks = lines[so];
+            if (clues[stacks[0]] > clues[stacks[1]] || clues[stacks[1]] > clues[stacks[2]]) continue;
+            for (int pos = 0, label = 1; pos < BOX; pos++) {
+                position[stacks[pos]] = pos;
+                firstLabel[stacks[pos]] = label;
+                label += clues[stacks[pos]];
+            }
+            for (int a = 0; a < lines.length; a++) {
+                if ((blanksFirst[stacks[0]] & 1 << a) == 0) continue;
+                int labelB = labelStack(grid, r, stacks[0], lines[a], 1);
+                chosen[0] = lines[a];
+                int secondsA = unbeaten(grid, band, seconds, stacks, 0);
+                if (secondsA == 0) continue;
+                for (int b = 0; b < lines.length; b++) {
+                    if ((blanksFirst[stacks[1]] & 1 << b) == 0) continue;
+                    int labelC = labelStack(grid, r, stacks[1], lines[b], labelB);
+                    chosen[1] = lines[b];
+                    int secondsB = unbeaten(grid, band, secondsA, stacks, 1);
+                    if (secondsB == 0) continue;
+                    for (int c = 0; c < lines.length; c++) {
+                        if ((blanksFirst[stacks[2]] & 1 << c) == 0) continue;
+                        labelStack(grid, r, stacks[2], lines[c], labelC);
+                        int o = ((so * lines.length + a) * lines.length + b) * lines.length + c;
+                        for (int left = secondsB; left != 0; left &= left - 1) {
+                            offer(1, t, o, band + Integer.numberOfTrailingZeros(left), firstMap, 0, firstRows, 0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // The second rows (bitmask over the band) whose stacks at positions 0..p, as chosen so
+    // far, do not already lose to the best second row, whatever the later stacks hold
+    private int unbeaten(int[] grid, int band, int seconds, int[] stacks, int p) {
+        if (nextCount == 0) return seconds;             // No best second row yet
+        for (int left = seconds; left != 0; left &= left - 1) {
+            int bit = Integer.numberOfTrailingZeros(left);
+            if (secondRowBeaten(grid, band + bit, stacks, p)) seconds &= ~(1 << bit);
+        }
+        return seconds;
+    }
+
+    // Compare the first stacks of a second row with the best one. First-row digits from a
+    // stack not placed yet have no label, but it is at least that stack's first label.
+    private boolean secondRowBeaten(int[] grid, int r, int[] stacks, int p) {
+        int label = firstMap[MAP - 1];                  // Next free label
+        int seen = 0;                                   // Digits first labelled in this row
+        for (int q = 0; q <= p; q++) {
+            for (int i = 0; i < BOX; i++) {
+                int num = grid[r * SIZE + stacks[q] * BOX + chosen[q][i]];
+                int value = 0;
+                boolean exact = true;
+                if (num != 0) {
+                    int stack = home[num];
+                    if (stack < 0) { // Not in the first row: next label on first sight
+                        if ((seen & 1 << num) == 0) {
+                            fresh[num] = label++;
+                            seen |= 1 << num;
+                        }
+                        value = fresh[num];
+                    } else if (position[stack] <= p) {
+                        value = firstMap[num];
+                    } else {
+                        value = firstLabel[stack];      // Lower bound only
+                        exact = false;
+                    }
+                }
+                int best = result[SIZE + q * BOX + i];
+                if (value > best) return true;
+                if (value < best || !exact) return false;
+            }
+        }
+        return false;
+    }
+
+    // Label the clues of one stack of the first row in the given inner order, starting at
+    // label; returns the next free label
+    private int labelStack(int[] grid, int r, int stack, int[] inner, int label) {
+        for (int i = 0; i < BOX; i++) {
+            int num = grid[r * SIZE + stack * BOX + inner[i]];
+            if (num != 0) firstMap[num] = label++;
+        }
+        return label;
+    }
+
+    private boolean bandUsed(int base, int out, int band) {
+        for (int i = 0; i < out; i += BOX) {
+            if (rows[base + i] / BOX == band) return true;
+        }
+        return false;
+    }
+
+    private boolean rowUsed(int base, int out, int r) {
+        for (int i = out - out % BOX; i < out; i++) {
+            if (rows[base + i] == r) return true;
+        }
+        return false;
+    }
+
+    private void swapLevels() {
+        int[] tmp = transposed; transposed = nextTransposed; nextTransposed = tmp;
+        tmp = order; order = nextOrder; nextOrder = tmp;
+        tmp = rows; rows = nextRows; nextRows = tmp;
+        tmp = map; map = nextMap; nextMap = tmp;
+        count = nextCount;
+    }
+
+    // Stack order, then the column order inside each stack
+    private static int[][] buildColumnOrders() {
+        int[][] lines = GridTransformer.BAND_ORDERS;
+        int[][] orders = new int[lines.length * lines.length * lines.length * lines.length][SIZE];
+        int n = 0;
+        for (int[] stacks : lines) {
+            for (int[] a : lines) {
+                for (int[] b : lines) {
+                    for (int[] c : lines) {
+                        int[][] inside = {a, b, c};
+                        for (int s = 0; s < BOX; s++) {
+                            for (int i = 0; i < BOX; i++) {
+                                orders[n][s * BOX + i] = stacks[s] * BOX + inside[s][i];
+                            }
+                        }
+                        n++;
+                    }
+                }
+            }
+        }
+        return orders;
+    }
+}
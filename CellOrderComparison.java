@@ -0,0 +1,47 @@
+import java.io.PrintStream;   // For the report
+
+// Compares how many search nodes the backtracker needs with first-empty cell selection
+// (the original behaviour), with most-constrained (MRV) selection, and with MRV plus
+// naked/hidden single propagation.
+class CellOrderComparison {
+    // Used when no puzzles are given on the command line
+    static final String[] SAMPLE_PUZZLES = {
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079", // Easy
+        "000000010400000000020000000000050407008000300001090000300400200050100000000806000", // 17 clues
+        "800000000003600000070090200050007000000045700000100030001000068008500010090000400", // "World's hardest"
+        "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9"  // Anti-backtracking
+    };
+
+    static void run(String[] puzzles, PrintStream out) {
+        if (puzzles.length == 0) puzzles = SAMPLE_PUZZLES;
+        out.printf("%-12s %14s %14s %10s %14s%n", "puzzle", "first-empty", "MRV", "ratio", "MRV+singles");
+        long totalFirst = 0, totalMrv = 0, totalSingles = 0;
+        for (int i = 0; i < puzzles.length; i++) {
+            int[][] grid = SudokuBoard.parse(puzzles[i].trim());
+            if (grid == null) {
+                out.println("#" + (i + 1) + ": not a puzzle, skipped");
+                continue;
+            }
+            long first = countNodes(grid, SudokuSolver.CellOrder.FIRST_EMPTY, false);
+            long mrv = countNodes(grid, SudokuSolver.CellOrder.MOST_CONSTRAINED, false);
+            long singles = countNodes(grid, SudokuSolver.CellOrder.MOST_CONSTRAINED, true);
+            totalFirst += first;
+            totalMrv += mrv;
+            totalSingles += singles;
+            out.printf("%-12s %14d %14d %9.1fx %14d%n", "#" + (i + 1), first, mrv, (double) first / Math.max(1, mrv), singles);
+        }
+        out.printf("%-12s %14d %14d %9.1fx %14d%n", "total", totalFirst, totalMrv,
+                (double) totalFirst / Math.max(1, totalMrv), totalSingles);
+    }
+
+    // Nodes (tried placements, not counting deductions) needed to solve a grid
+    static long countNodes(int[][] grid, SudokuSolver.CellOrder order, boolean propagation) {
+        SudokuBoard board = new SudokuBoard(grid.length);
+        board.load(grid);
+        SudokuSolver solver = new SudokuSolver(board);
+        solver.setCellOrder(order);
+        solver.setPropagation(propagation);
+        solver.solve();
+        return solver.getNodeCount();
+    }
+}
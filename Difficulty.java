@@ -0,0 +1,26 @@
+// Difficulty bands, named after the hardest technique a puzzle needs (see DifficultyRater)
+enum Difficulty {
+    EASY("Easy"),       // Naked and hidden singles
+    MEDIUM("Medium"),   // Locked candidates (pointing and claiming)
+    HARD("Hard"),       // Naked pairs and triples, X-wings
+    EXPERT("Expert");   // Needs more than the techniques above (guessing)
+
+    private final String label;     // Name shown in the GUI
+
+    Difficulty(String label) {
+        this.label = label;
+    }
+
+    // Look up a difficulty by its GUI label
+    static Difficulty fromLabel(String label) {
+        for (Difficulty difficulty : values()) {
+            if (difficulty.label.equals(label)) return difficulty;
+        }
+        throw new IllegalArgumentException("Unknown difficulty: " + label);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
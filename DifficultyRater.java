@@ -0,0 +1,251 @@
+// Rates a puzzle the way a person would solve it: techniques are applied easiest first,
+// starting over from the easiest after every step, and the puzzle gets the band of the
+// hardest technique it needed. A puzzle the techniques cannot finish is EXPERT.
+// Works on candidate bitmasks in preallocated arrays, so rating takes microseconds and
+// one rater can be reused for any number of puzzles (not thread-safe). The arrays follow
+// the size of the board being rated and are only reallocated when that size changes.
+class DifficultyRater {
+    private SudokuBoard board = null;                   // Board being rated, for its geometry
+    private int size = 0;                               // Its cells per row, and digits
+    private int cells = 0;
+    private int[][] units;                              // Its rows, columns and boxes
+    private int boxes;                                  // Index of the first box in units
+
+    private int[] values = new int[0];                  // Digit per cell, 0 = empty
+    private long[] cand = new long[0];                  // Remaining candidates of each empty cell
+    private int empty;                                  // Number of empty cells
+    private long[] positions = new long[0];             // X-wing: where a digit can go in each line
+    private SudokuBoard scratch = null;                 // For rating plain grids
+
+    // Rate the puzzle on a board (the board is not changed)
+    Difficulty rate(SudokuBoard board) {
+        this.board = board;
+        if (board.size() != size) {
+            size = board.size();
+            cells = board.cellCount();
+            units = board.units();
+            boxes = 2 * size;
+            values = new int[cells];
+            cand = new long[cells];
+            positions = new long[size];
+        }
+        empty = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            values[cell] = board.get(cell);
+            cand[cell] = values[cell] == 0 ? board.candidates(cell) : 0;
+            if (values[cell] == 0) empty++;
+        }
+        return solve();
+    }
+
+    // Rate a grid (0 = empty); returns null if the givens conflict
+    Difficulty rate(int[][] grid) {
+        if (scratch == null || scratch.size() != grid.length) scratch = new SudokuBoard(grid.length);
+        if (!scratch.load(grid)) return null;
+        return rate(scratch);
+    }
+
+    private Difficulty solve() {
+        Difficulty hardest = Difficulty.EASY;
+        while (empty > 0) {
+            if (nakedSingles() || hiddenSingles()) continue;
+            if (lockedCandidates()) {
+                if (hardest.compareTo(Difficulty.MEDIUM) < 0) hardest = Difficulty.MEDIUM;
+                continue;
+            }
+            if (nakedSubsets() || xWings()) {
+                hardest = Difficulty.HARD;
+                continue;
+            }
+            return Difficulty.EXPERT; // Stuck: only guessing goes further
+        }
+        return hardest;
+    }
+
+    private void assign(int cell, int num) {
+        long b = SudokuBoard.bit(num);
+        values[cell] = num;
+        cand[cell] = 0;
+        empty--;
+        for (int peer : board.peers(cell)) {
+            cand[peer] &= ~b;
+        }
+    }
+
+    // Remove candidate bits from a cell; returns true if any were there
+    private boolean eliminate(int cell, long mask) {
+        if ((cand[cell] & mask) == 0) return false;
+        cand[cell] &= ~mask;
+        return true;
+    }
+
+    // --- Singles ---
+
+    // Cells with exactly one candidate left
+    private boolean nakedSingles() {
+        boolean found = false;
+        for (int cell = 0; cell < cells; cell++) {
+            long c = cand[cell];
+            if (c != 0 && (c & (c - 1)) == 0) {
+                assign(cell, Long.numberOfTrailingZeros(c) + 1);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    // Digits with only one possible cell in a unit
+    private boolean hiddenSingles() {
+        boolean found = false;
+        for (int[] unit : units) {
+            long once = 0, twice = 0;
+            for (int c : unit) {
+                twice |= once & cand[c];
+                once |= cand[c];
+            }
+            for (long single = once & ~twice; single != 0; single &= single - 1) {
+                long b = single & -single;
+                for (int c : unit) {
+                    if ((cand[c] & b) != 0) {
+                        assign(c, Long.numberOfTrailingZeros(b) + 1);
+                        found = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // --- Locked candidates ---
+
+    // Pointing: a digit confined to one line inside a box leaves the rest of that line.
+    // Claiming: a digit confined to one box inside a line leaves the rest of that box.
+    private boolean lockedCandidates() {
+        boolean found = false;
+        for (int box = 0; box < size; box++) {
+            int[] unit = units[boxes + box];
+            for (int d = 0; d < size; d++) {
+                long b = 1L << d;
+                long rows = 0, cols = 0;
+                for (int c : unit) {
+                    if ((cand[c] & b) != 0) {
+                        rows |= 1L << board.rowOf(c);
+                        cols |= 1L << board.colOf(c);
+                    }
+                }
+                if (rows != 0 && (rows & (rows - 1)) == 0) {
+                    found |= eliminateOutside(units[Long.numberOfTrailingZeros(rows)], unit, b);
+                }
+                if (cols != 0 && (cols & (cols - 1)) == 0) {
+                    found |= eliminateOutside(units[size + Long.numberOfTrailingZeros(cols)], unit, b);
+                }
+            }
+        }
+        for (int line = 0; line < boxes; line++) {
+            int[] unit = units[line];
+            for (int d = 0; d < size; d++) {
+                long b = 1L << d;
+                long inBoxes = 0;
+                for (int c : unit) {
+                    if ((cand[c] & b) != 0) inBoxes |= 1L << board.boxOf(board.rowOf(c), board.colOf(c));
+                }
+                if (inBoxes != 0 && (inBoxes & (inBoxes - 1)) == 0) {
+                    found |= eliminateOutside(units[boxes + Long.numberOfTrailingZeros(inBoxes)], unit, b);
+                }
+            }
+        }
+        return found;
+    }
+
+    // Remove a digit from the cells of target that are not in source
+    private boolean eliminateOutside(int[] target, int[] source, long b) {
+        boolean found = false;
+        for (int c : target) {
+            if ((cand[c] & b) != 0 && !contains(source, c)) {
+                cand[c] &= ~b;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private static boolean contains(int[] unit, int cell) {
+        for (int c : unit) {
+            if (c == cell) return true;
+        }
+        return false;
+    }
+
+    // --- Naked pairs and triples ---
+
+    // N cells of a unit whose candidates together are only N digits take those digits
+    // away from the other cells of the unit
+    private boolean nakedSubsets() {
+        for (int[] unit : units) {
+            for (int i = 0; i < size; i++) {
+                long a = cand[unit[i]];
+                if (a == 0 || Long.bitCount(a) > 3) continue;
+                for (int j = i + 1; j < size; j++) {
+                    long ab = a | cand[unit[j]];
+                    if (cand[unit[j]] == 0 || Long.bitCount(ab) > 3) continue;
+                    if (Long.bitCount(ab) == 2 && eliminateOthers(unit, ab, i, j, j)) return true;
+                    for (int k = j + 1; k < size; k++) {
+                        long abc = ab | cand[unit[k]];
+                        if (cand[unit[k]] != 0 && Long.bitCount(abc) == 3 && eliminateOthers(unit, abc, i, j, k)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Remove mask from every cell of the unit except positions i, j and k
+    private boolean eliminateOthers(int[] unit, long mask, int i, int j, int k) {
+        boolean found = false;
+        for (int p = 0; p < size; p++) {
+            if (p != i && p != j && p != k) found |= eliminate(unit[p], mask);
+        }
+        return found;
+    }
+
+    // --- X-wing ---
+
+    // A digit with the same two possible columns in two rows leaves the rest of those
+    // columns (and the same with rows and columns swapped)
+    private boolean xWings() {
+        for (int d = 0; d < size; d++) {
+            long b = 1L << d;
+            if (xWing(b, 0, size) || xWing(b, size, 0)) return true;
+        }
+        return false;
+    }
+
+    // Lines are units[lines..lines+N-1], crossing lines units[cross..cross+N-1]
+    private boolean xWing(long b, int lines, int cross) {
+        for (int l = 0; l < size; l++) {
+            int[] unit = units[lines + l];
+            positions[l] = 0;
+            for (int p = 0; p < size; p++) {
+                if ((cand[unit[p]] & b) != 0) positions[l] |= 1L << p;
+            }
+        }
+        for (int l1 = 0; l1 < size; l1++) {
+            if (Long.bitCount(positions[l1]) != 2) continue;
+            for (int l2 = l1 + 1; l2 < size; l2++) {
+                if (positions[l2] != positions[l1]) continue;
+                boolean found = false;
+                for (long pos = positions[l1]; pos != 0; pos &= pos - 1) {
+                    int[] crossing = units[cross + Long.numberOfTrailingZeros(pos)];
+                    for (int q = 0; q < size; q++) {
+                        if (q != l1 && q != l2) found |= eliminate(crossing[q], b);
+                    }
+                }
+                if (found) return true;
+            }
+        }
+        return false;
+    }
+}
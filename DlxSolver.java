@@ -0,0 +1,271 @@
+// Dancing Links (Algorithm X) engine. The grid is modelled as an exact-cover matrix with
+// 4 * N * N constraint columns (cell, row-digit, column-digit, box-digit) and N * N * N
+// candidate rows (cell x digit), each row having exactly four nodes: 324 columns and 729
+// rows on the classic grid. All links live in int arrays allocated with the solver, so
+// nothing is allocated while searching.
+class DlxSolver implements SudokuEngine {
+    private static final int ROOT = 0;                  // Header of the column list
+
+    private final int side;                             // Cells per row of the board, and digits
+    private final int cells;                            // side * side
+    private final int columns;                          // 4 * cells constraints
+    private final int firstRowNode;                     // Column headers occupy 1..columns
+
+    private final SudokuBoard board;                    // Constraint state being solved in place
+    private SolverListener listener = SolverListener.NONE; // Receives try/backtrack events
+    private final SearchControl control;                // Pause/step/cancel requests from other threads
+    private SearchStats stats = null;                   // Live progress of solve(), if anyone watches
+    private long nodes = 0;                             // Rows tried by the last solve
+    private long guesses = 0;                           // Rows tried in columns with more than one row
+    private long backtracks = 0;                        // Rows taken back
+    private int depth = 0;                              // Rows selected by the search so far
+    private int maxDepth = 0;
+
+    // Node links: left, right, up, down, and the column header each node belongs to
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] size;                           // Remaining rows per column
+
+    DlxSolver(SudokuBoard board) {
+        this(board, new SearchControl());
+    }
+
+    // Solver obeying a control shared with other searches, so one request stops them all
+    DlxSolver(SudokuBoard board, SearchControl control) {
+        this.board = board;
+        this.control = control;
+        side = board.size();
+        cells = side * side;
+        columns = 4 * cells;
+        firstRowNode = columns + 1;
+        int nodes = firstRowNode + 4 * cells * side;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        size = new int[columns + 1];
+    }
+
+    @Override
+    public void setListener(SolverListener listener) {
+        this.listener = listener == null ? SolverListener.NONE : listener;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchControl getControl() {
+        return control;
+    }
+
+    // Rows tried by the last solve
+    long getNodeCount() {
+        return nodes;
+    }
+
+    // Rows tried in columns with more than one row by the last solve
+    long getGuessCount() {
+        return guesses;
+    }
+
+    // Rows taken back by the last solve
+    long getBacktrackCount() {
+        return backtracks;
+    }
+
+    // Deepest search level of the last solve
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public boolean solve() {
+        long start = System.nanoTime();
+        SudokuEvents.Solve event = new SudokuEvents.Solve();
+        event.begin();
+        int clues = event.isEnabled() ? SudokuEvents.clues(board) : 0;
+        if (stats != null) stats.start();
+        boolean solved = search();
+        if (stats != null) stats.finish();
+        SolverMetrics.INSTANCE.recordSearch(nodes, guesses, backtracks, 0, maxDepth); // Nothing is deduced outside the search
+        SolverMetrics.INSTANCE.recordSolve(System.nanoTime() - start, solved);
+        event.finish(SolverType.DANCING_LINKS.toString(), clues, solved, nodes, guesses, backtracks, 0, maxDepth);
+        return solved;
+    }
+
+    // The search of solve() without reporting it anywhere, for engines built on this one
+    // (they read the counts through the getters and report them as their own)
+    boolean search() {
+        nodes = 0;
+        guesses = 0;
+        backtracks = 0;
+        depth = 0;
+        maxDepth = 0;
+        return selectGivens() && searchNode();
+    }
+
+    // Build the matrix and select the rows of the givens up front; false if they conflict
+    private boolean selectGivens() {
+        buildMatrix();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int num = board.get(row, col);
+                if (num == 0) continue;
+                int node = firstNode(candidateRow(row, col, num));
+                if (!isAvailable(node)) return false; // Givens conflict
+                selectRow(node);
+            }
+        }
+        return true;
+    }
+
+    // Algorithm X: pick the column with the fewest rows and try each of them
+    private boolean searchNode() {
+        if (right[ROOT] == ROOT) {
+            return true; // Every constraint is satisfied
+        }
+        if (!control.proceed()) return false; // Paused here, or stop was requested
+
+        int col = right[ROOT];
+        for (int c = right[col]; c != ROOT; c = right[c]) {
+            if (size[c] < size[col]) col = c;
+        }
+        if (size[col] == 0) return false; // Dead end
+
+        boolean guess = size[col] > 1;
+        if (stats != null) stats.enter(size[col]);
+        cover(col);
+        for (int node = down[col]; node != col; node = down[node]) {
+            int candidate = (node - firstRowNode) / 4;
+            int cell = candidate / side;
+            int row = board.rowOf(cell);
+            int c = board.colOf(cell);
+            int num = candidate % side + 1;
+
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+            }
+            board.place(row, c, num);
+            nodes++;
+            if (guess) guesses++;
+            if (stats != null) stats.tryBranch();
+            listener.onTry(row, c, num);
+
+            if (++depth > maxDepth) maxDepth = depth;
+            boolean found = searchNode();
+            depth--;
+            if (found) {
+                return true; // Found solution path
+            }
+
+            board.remove(row, c); // Backtrack
+            backtracks++;
+            if (stats != null) stats.backtrack();
+            for (int j = left[node]; j != node; j = left[j]) {
+                uncover(column[j]);
+            }
+            if (control.isCancelled()) break;
+            listener.onBacktrack(row, c, num);
+        }
+        uncover(col);
+        return false;
+    }
+
+    // Link every column header and candidate row into the initial matrix
+    private void buildMatrix() {
+        for (int c = 0; c <= columns; c++) {
+            left[c] = c - 1;
+            right[c] = c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            size[c] = 0;
+        }
+        left[ROOT] = columns;
+        right[columns] = ROOT;
+
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int box = board.boxOf(row, col);
+                for (int num = 1; num <= side; num++) {
+                    int first = firstNode(candidateRow(row, col, num));
+                    int digit = num - 1;
+                    linkNode(first, 1 + row * side + col);
+                    linkNode(first + 1, 1 + cells + row * side + digit);
+                    linkNode(first + 2, 1 + 2 * cells + col * side + digit);
+                    linkNode(first + 3, 1 + 3 * cells + box * side + digit);
+                    for (int k = 0; k < 4; k++) {
+                        left[first + k] = first + (k + 3) % 4;
+                        right[first + k] = first + (k + 1) % 4;
+                    }
+                }
+            }
+        }
+    }
+
+    // Append a node at the bottom of a column
+    private void linkNode(int node, int col) {
+        column[node] = col;
+        up[node] = up[col];
+        down[node] = col;
+        down[up[col]] = node;
+        up[col] = node;
+        size[col]++;
+    }
+
+    private int candidateRow(int row, int col, int num) {
+        return (row * side + col) * side + (num - 1);
+    }
+
+    private int firstNode(int candidate) {
+        return firstRowNode + 4 * candidate;
+    }
+
+    // A row can still be selected while none of its four columns is covered
+    private boolean isAvailable(int node) {
+        for (int k = 0; k < 4; k++) {
+            int col = column[node + k];
+            if (right[left[col]] != col) return false; // Column unlinked from the header list
+        }
+        return true;
+    }
+
+    // Select a row outright (used for the givens): cover all of its columns
+    private void selectRow(int node) {
+        cover(column[node]);
+        for (int j = right[node]; j != node; j = right[j]) {
+            cover(column[j]);
+        }
+    }
+
+    private void cover(int col) {
+        right[left[col]] = right[col];
+        left[right[col]] = left[col];
+        for (int i = down[col]; i != col; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int col) {
+        for (int i = up[col]; i != col; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[col]] = col;
+        left[right[col]] = col;
+    }
+}
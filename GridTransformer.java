@@ -0,0 +1,135 @@
+import java.util.SplittableRandom; // For random variants
+
+// Validity-preserving symmetries of a Sudoku grid: digit relabelling, row swaps within a
+// band, column swaps within a stack, band swaps, stack swaps and transposition. Together
+// they give 9! * 6^8 * 2 (about 1.2 trillion) variants of any grid, with the same number
+// of solutions and the same difficulty. The transformer holds one composed transform as
+// lookup tables, so apply() is a single pass with no allocation. Classic 9x9 grids only.
+// Output cell (r, c) takes the digit of input cell (rowMap[r], colMap[c]), or of
+// (colMap[c], rowMap[r]) when transposed, relabelled through digitMap.
+class GridTransformer {
+    private static final int SIZE = SudokuBoard.SIZE;
+    private static final int BOX = SudokuBoard.SUBGRID_SIZE;
+    static final int[][] BAND_ORDERS = {                // The 3! orders of three lines
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    private final int[] digitMap = new int[SIZE + 1];   // Digit relabelling, digitMap[0] = 0
+    private int[] rowMap = new int[SIZE];               // Source line for each output row
+    private int[] colMap = new int[SIZE];               // Source line for each output column
+    private boolean transposed = false;
+
+    GridTransformer() {
+        reset();
+    }
+
+    // Back to the identity transform
+    void reset() {
+        for (int i = 0; i < SIZE; i++) {
+            digitMap[i + 1] = i + 1;
+            rowMap[i] = i;
+            colMap[i] = i;
+        }
+        transposed = false;
+    }
+
+    // --- Single symmetries, composed onto the current transform ---
+
+    void swapDigits(int a, int b) {
+        for (int d = 1; d <= SIZE; d++) {
+            if (digitMap[d] == a) {
+                digitMap[d] = b;
+            } else if (digitMap[d] == b) {
+                digitMap[d] = a;
+            }
+        }
+    }
+
+    void swapRows(int r1, int r2) {
+        if (r1 / BOX != r2 / BOX) throw new IllegalArgumentException("Rows " + r1 + " and " + r2 + " are in different bands");
+        swap(rowMap, r1, r2);
+    }
+
+    void swapColumns(int c1, int c2) {
+        if (c1 / BOX != c2 / BOX) throw new IllegalArgumentException("Columns " + c1 + " and " + c2 + " are in different stacks");
+        swap(colMap, c1, c2);
+    }
+
+    void swapBands(int b1, int b2) {
+        for (int i = 0; i < BOX; i++) {
+            swap(rowMap, b1 * BOX + i, b2 * BOX + i);
+        }
+    }
+
+    void swapStacks(int s1, int s2) {
+        for (int i = 0; i < BOX; i++) {
+            swap(colMap, s1 * BOX + i, s2 * BOX + i);
+        }
+    }
+
+    void transpose() {
+        int[] rows = rowMap; // Rows of the result are the columns before
+        rowMap = colMap;
+        colMap = rows;
+        transposed = !transposed;
+    }
+
+    // Replace the transform with one chosen uniformly from all variants
+    void randomize(SplittableRandom rand) {
+        for (int d = 1; d <= SIZE; d++) {
+            digitMap[d] = d;
+        }
+        shuffle(digitMap, 1, SIZE, rand);
+        randomLines(rowMap, rand);
+        randomLines(colMap, rand);
+        transposed = rand.nextBoolean();
+    }
+
+    // --- Applying the transform ---
+
+    // Transform a grid into another one (0 = empty is kept); from and to must differ
+    void apply(int[][] from, int[][] to) {
+        for (int r = 0; r < SIZE; r++) {
+            int[] target = to[r];
+            for (int c = 0; c < SIZE; c++) {
+                int num = transposed ? from[colMap[c]][rowMap[r]] : from[rowMap[r]][colMap[c]];
+                target[c] = digitMap[num];
+            }
+        }
+    }
+
+    // Same for row-major cell arrays
+    void apply(int[] from, int[] to) {
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                int num = transposed ? from[colMap[c] * SIZE + rowMap[r]] : from[rowMap[r] * SIZE + colMap[c]];
+                to[r * SIZE + c] = digitMap[num];
+            }
+        }
+    }
+
+    // Random band order, then a random row order inside each band
+    private static void randomLines(int[] map, SplittableRandom rand) {
+        int[] bands = BAND_ORDERS[rand.nextInt(BAND_ORDERS.length)];
+        for (int b = 0; b < BOX; b++) {
+            int[] rows = BAND_ORDERS[rand.nextInt(BAND_ORDERS.length)];
+            for (int i = 0; i < BOX; i++) {
+                map[b * BOX + i] = bands[b] * BOX + rows[i];
+            }
+        }
+    }
+
+    // Fisher-Yates shuffle of values[from..from+n-1]
+    private static void shuffle(int[] values, int from, int n, SplittableRandom rand) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            swap(values, from + i, from + j);
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+}
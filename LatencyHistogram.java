@@ -0,0 +1,53 @@
+// Fixed-size latency histogram for percentile reports over any number of samples.
+// Values (nanoseconds) go into log-linear buckets: one range per power of two, split
+// into SUB_BUCKETS equal parts, so each percentile is within about 3% of the true value
+// while memory stays constant. Not thread-safe: BatchSolver records from its writer thread only.
+class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;   // Buckets per power of two
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long total = 0;
+    private long max = 0;
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketOf(nanos)]++;
+        total++;
+        if (nanos > max) max = nanos;
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), in nanoseconds
+    long percentile(double percent) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    // Values below SUB_BUCKETS get a bucket each; above, the top SUB_BITS + 1 bits select it
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long base = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.ArrayList;                           // Child tasks of a split
+import java.util.concurrent.ForkJoinPool;             // Work-stealing workers
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;        // Solutions found so far
+import java.util.concurrent.atomic.AtomicReference;   // First solution
+import java.util.concurrent.atomic.LongAccumulator;   // Deepest leaf search
+import java.util.concurrent.atomic.LongAdder;         // Counts of the leaf searches
+
+// Fork/join engine for hard and multi-solution puzzles. The top SPLIT_DEPTH guessing
+// levels of the search tree become tasks: a task places the forced cells on its own
+// board, then takes the most constrained cell with a choice and forks one child per
+// candidate, each on its own copy of the board with the candidate placed. Below that a
+// task runs the sequential SudokuSolver on its board, with propagation. Idle workers of
+// the pool steal pending subtrees, so an unbalanced tree still keeps every core busy.
+// The leaf solvers share one SearchControl: the first solution, the counting limit or
+// a cancel of this engine's control stops every leaf at its next step.
+// The listener gets no events, since the search runs on many threads at once; the live
+// stats add up each subtree's counts and share of the tree as it finishes.
+class ParallelSolver implements SudokuEngine {
+    static final int SPLIT_DEPTH = 6;                   // Guessing levels turned into tasks
+
+    private final SudokuBoard board;                    // Constraint state being solved in place
+    private final ForkJoinPool pool;
+    private final SearchControl control = new SearchControl(); // Pause/step/cancel requests from other threads
+    private SearchStats stats = null;                   // Live progress of solve(), if anyone watches
+
+    ParallelSolver(SudokuBoard board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+
+    ParallelSolver(SudokuBoard board, ForkJoinPool pool) {
+        this.board = board;
+        this.pool = pool;
+    }
+
+    @Override
+    public void setListener(SolverListener listener) {
+        // No events: they would interleave from every worker
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchControl getControl() {
+        return control;
+    }
+
+    @Override
+    public boolean solve() {
+        long start = System.nanoTime();
+        SudokuEvents.Solve event = new SudokuEvents.Solve();
+        event.begin();
+        int clues = event.isEnabled() ? SudokuEvents.clues(board) : 0;
+        if (stats != null) stats.start();
+        Search search = new Search(1);
+        search.run();
+        if (stats != null) stats.finish();
+        SudokuBoard solution = search.first.get();
+        if (solution != null) board.copyFrom(solution);
+        search.publish();
+        SolverMetrics.INSTANCE.recordSolve(System.nanoTime() - start, solution != null);
+        event.finish(SolverType.PARALLEL.toString(), clues, solution != null, search.nodes.sum(),
+                search.guesses.sum(), search.backtracks.sum(), search.propagations.sum(), (int) search.maxDepth.get());
+        return solution != null;
+    }
+
+    // Count the solutions in parallel, stopping at limit (Long.MAX_VALUE for all of them).
+    // The board is left as it was.
+    long countSolutions(long limit) {
+        Search search = new Search(limit);
+        search.run();
+        search.publish();
+        return Math.min(search.found.get(), limit);
+    }
+
+    // One run of the engine: the shared stop signal, the results and the summed counts
+    private final class Search {
+        final long limit;                               // Solutions wanted
+        final SearchStats live = stats;                 // Null if nobody watches
+        final AtomicReference<SudokuBoard> first = new AtomicReference<>();
+        final AtomicLong found = new AtomicLong();
+        volatile boolean done = false;                  // Enough solutions: every task stops
+        final SearchControl leafControl = new SearchControl() { // This engine's control, plus done
+            @Override
+            boolean proceed() {
+                return !done && control.proceed();
+            }
+        };
+        final LongAdder nodes = new LongAdder();
+        final LongAdder guesses = new LongAdder();
+        final LongAdder backtracks = new LongAdder();
+        final LongAdder propagations = new LongAdder();
+        final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+        Search(long limit) {
+            this.limit = limit;
+        }
+
+        void run() {
+            SudokuBoard root = new SudokuBoard(board.size());
+            root.copyFrom(board);
+            pool.invoke(new Branch(root, 0, 0, 1));
+        }
+
+        void publish() {
+            SolverMetrics.INSTANCE.recordSearch(nodes.sum(), guesses.sum(), backtracks.sum(), propagations.sum(),
+                    (int) maxDepth.get());
+        }
+
+        // A solution on a leaf's board; false once no more are wanted
+        boolean offer(SudokuBoard solution) {
+            long n = found.incrementAndGet();
+            if (n > limit) return false; // Another leaf got there first
+            if (n == 1) {
+                SudokuBoard copy = new SudokuBoard(board.size());
+                copy.copyFrom(solution);
+                first.set(copy);
+            }
+            if (n == limit) done = true;
+            return n < limit;
+        }
+
+        // A subtree: split while shallow, search sequentially below
+        final class Branch extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final SudokuBoard node;             // Owned by this task
+            private final int level;                    // Guessing levels above
+            private final int placed;                   // Cells placed by the splits above
+            private final double share;                 // Estimated fraction of the whole tree below
+
+            Branch(SudokuBoard node, int level, int placed, double share) {
+                this.node = node;
+                this.level = level;
+                this.placed = placed;
+                this.share = share;
+            }
+
+            @Override
+            protected void compute() {
+                if (done || control.isCancelled()) return;
+                int forced = 0;                         // Cells with one candidate, placed in place
+                while (level < SPLIT_DEPTH && !node.isFull()) {
+                    int cell = node.mostConstrained();
+                    long mask = node.candidates(cell);
+                    if (mask == 0) { // Dead end
+                        finished(forced, 0, 0, placed + forced);
+                        return;
+                    }
+                    if (Long.bitCount(mask) == 1) {
+                        node.place(cell, Long.numberOfTrailingZeros(mask) + 1);
+                        forced++;
+                        continue;
+                    }
+                    ArrayList<Branch> children = new ArrayList<>(Long.bitCount(mask));
+                    for (long rest = mask; rest != 0; rest &= rest - 1) {
+                        SudokuBoard child = new SudokuBoard(node.size());
+                        child.copyFrom(node);
+                        child.place(cell, Long.numberOfTrailingZeros(rest) + 1);
+                        children.add(new Branch(child, level + 1, placed + forced + 1, share / Long.bitCount(mask)));
+                    }
+                    nodes.add(forced + children.size());
+                    guesses.add(children.size());
+                    if (live != null) live.add(forced + children.size(), children.size(), 0, placed + forced, 0);
+                    invokeAll(children);
+                    return;
+                }
+                searchLeaf(forced);
+            }
+
+            // Sum up the counts of a finished subtree, and add its share to the live stats
+            private void finished(long nodeCount, long guessCount, long backtrackCount, int depth) {
+                nodes.add(nodeCount);
+                guesses.add(guessCount);
+                backtracks.add(backtrackCount);
+                maxDepth.accumulate(depth);
+                if (live != null) live.add(nodeCount, guessCount, backtrackCount, depth, share);
+            }
+
+            private void searchLeaf(int forced) {
+                SudokuSolver solver = new SudokuSolver(node, leafControl);
+                if (limit == 1) {
+                    if (solver.search() && first.compareAndSet(null, node)) {
+                        found.incrementAndGet();
+                        done = true; // First solution wins
+                    }
+                } else {
+                    solver.enumerate(Integer.MAX_VALUE, solution -> {
+                        if (!offer(solution)) done = true;
+                    });
+                }
+                propagations.add(solver.getPropagationCount());
+                finished(forced + solver.getNodeCount(), solver.getGuessCount(), solver.getBacktrackCount(),
+                        placed + forced + solver.getMaxDepth());
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.SplittableRandom;     // Number order of the restarting entrant
+import java.util.concurrent.Executor;  // Threads the entrants run on
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Races several search strategies on one puzzle and keeps the first answer. Solve times
+// are heavy-tailed and no single strategy is fastest on every puzzle, so running them
+// side by side gives each puzzle roughly the best time of the set. Every entrant works
+// on its own copy of the board on a thread of an executor, by default the process-wide
+// ENTRANTS pool with a thread per core, so a race starts no threads; the first to solve
+// the puzzle or prove it unsolvable wins, and the others stop at their next step through
+// the shared control. With fewer cores than strategies the entrants would only take
+// turns on them, so the MRV entrant then searches alone on the calling thread.
+// The winner is reported by getWinner(), as the engine of the Solve event and in the
+// PortfolioWins metric. Listener events are those of the winning entrant, handed over
+// once the race is decided; live stats follow the MRV entrant, the usual winner.
+class PortfolioSolver implements SudokuEngine {
+    static final long RESTART_STEPS = 256;              // Step budget of the first restart run
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService ENTRANTS = entrantPool(); // Shared by races without an executor of their own
+
+    // The strategies in the race
+    enum Strategy {
+        PLAIN("Plain backtracking"),        // First empty cell, no deductions
+        MRV("MRV + propagation"),           // Fewest candidates first, singles at every node
+        DANCING_LINKS("Dancing Links"),     // Algorithm X over the exact-cover matrix
+        RESTARTS("Randomized restarts");    // MRV with random number order, budget doubling per run
+
+        private final String label;
+
+        Strategy(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final SudokuBoard board;                    // Constraint state being solved in place
+    private final Executor executor;                    // Runs the entrants, null to run MRV alone
+    private SolverListener listener = SolverListener.NONE; // Receives the winner's events
+    private SearchStats stats = null;                   // Live progress of the MRV entrant
+    private final SearchControl control = new SearchControl(); // Pause/step/cancel requests from other threads
+    private final SplittableRandom random = new SplittableRandom(); // Seeds of the restarting entrant
+    private volatile Strategy winner = null;            // Of the last race, null if none
+
+    PortfolioSolver(SudokuBoard board) {
+        this(board, CORES >= Strategy.values().length ? ENTRANTS : null);
+    }
+
+    // Race on the given executor, which should have a thread per strategy free; null
+    // runs only the MRV entrant, on the thread calling solve()
+    PortfolioSolver(SudokuBoard board, Executor executor) {
+        this.board = board;
+        this.executor = executor;
+    }
+
+    @Override
+    public void setListener(SolverListener listener) {
+        this.listener = listener == null ? SolverListener.NONE : listener;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchControl getControl() {
+        return control;
+    }
+
+    // Strategy that decided the last race, or null if it was cancelled
+    Strategy getWinner() {
+        return winner;
+    }
+
+    @Override
+    public boolean solve() {
+        long start = System.nanoTime();
+        SudokuEvents.Solve event = new SudokuEvents.Solve();
+        event.begin();
+        int clues = event.isEnabled() ? SudokuEvents.clues(board) : 0;
+        winner = null;
+        if (stats != null) stats.start();
+        Race race = new Race();
+        Entrant first = race.run();
+        if (stats != null) stats.finish();
+
+        boolean solved = first != null && first.solved;
+        if (first != null) {
+            winner = first.strategy;
+            if (solved) board.copyFrom(first.board);
+            if (first.trace != null) first.trace.replayTo(listener);
+            if (executor != null) SolverMetrics.INSTANCE.recordWin(first.strategy.toString()); // Only real races count
+        }
+        SolverMetrics.INSTANCE.recordSolve(System.nanoTime() - start, solved);
+        if (first == null) {
+            event.finish(SolverType.PORTFOLIO.toString(), clues, false, 0, 0, 0, 0, 0);
+        } else {
+            event.finish(SolverType.PORTFOLIO + ": " + first.strategy, clues, solved, first.nodes, first.guesses,
+                    first.backtracks, first.propagations, first.maxDepth);
+        }
+        return solved;
+    }
+
+    // One race: the entrants, the shared stop signal and the first result
+    private final class Race {
+        private final Entrant[] entrants = executor == null ? new Entrant[1] : new Entrant[Strategy.values().length];
+        private volatile boolean decided = false;       // Every entrant stops once set
+        private Entrant first = null;                   // Guarded by this
+        private int running = 0;                        // Entrants still searching (guarded by this)
+        final SearchControl shared = new SearchControl() { // This engine's control, plus decided
+            @Override
+            boolean proceed() {
+                return !decided && control.proceed();
+            }
+
+            @Override
+            boolean isCancelled() {
+                return decided || control.isCancelled();
+            }
+        };
+
+        // Start every entrant, wait for the first result (null if cancelled first) and for
+        // the others to stop
+        Entrant run() {
+            if (executor == null) {
+                entrants[0] = new Entrant(this, Strategy.MRV);
+            } else {
+                for (Strategy strategy : Strategy.values()) {
+                    entrants[strategy.ordinal()] = new Entrant(this, strategy);
+                }
+            }
+            running = entrants.length;
+            if (executor == null) {
+                entrants[0].run(); // Finishes the race on this thread
+            } else {
+                for (Entrant entrant : entrants) {
+                    executor.execute(entrant);
+                }
+            }
+            Entrant result;
+            boolean interrupted = false;
+            synchronized (this) {
+                while (running > 0) { // After the first result the others stop at their next step
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        control.cancel(); // An interrupted caller stops the race
+                    }
+                }
+                result = first;
+            }
+            if (interrupted) Thread.currentThread().interrupt(); // Preserve interrupt status
+            for (Entrant entrant : entrants) {
+                entrant.publish();
+            }
+            return result;
+        }
+
+        // Called by each entrant as it stops; a definite result decides the race
+        synchronized void finish(Entrant entrant, boolean definite) {
+            running--;
+            if (definite && first == null) {
+                first = entrant;
+                decided = true;
+            }
+            notifyAll();
+        }
+    }
+
+    // One strategy of a race, searching its own board copy on a thread of the pool
+    private final class Entrant implements Runnable {
+        final Race race;
+        final Strategy strategy;
+        final SudokuBoard board;                        // Copy of the puzzle
+        final SolverTrace trace;                        // Events, recorded only if anyone listens
+        boolean solved = false;                         // Results, read once the race has seen this entrant finish
+        long nodes = 0;
+        long guesses = 0;
+        long backtracks = 0;
+        long propagations = 0;
+        int maxDepth = 0;
+
+        Entrant(Race race, Strategy strategy) {
+            this.race = race;
+            this.strategy = strategy;
+            board = new SudokuBoard(PortfolioSolver.this.board.size());
+            board.copyFrom(PortfolioSolver.this.board);
+            trace = listener == SolverListener.NONE ? null : new SolverTrace(board.size());
+        }
+
+        @Override
+        public void run() {
+            boolean definite = false;
+            try {
+                definite = search();
+            } finally {
+                race.finish(this, definite);
+            }
+        }
+
+        // Run the strategy; true if it solved the puzzle or proved it unsolvable
+        private boolean search() {
+            if (strategy == Strategy.DANCING_LINKS) {
+                DlxSolver solver = new DlxSolver(board, race.shared);
+                if (trace != null) solver.setListener(trace);
+                solved = solver.search();
+                nodes = solver.getNodeCount();
+                guesses = solver.getGuessCount();
+                backtracks = solver.getBacktrackCount();
+                maxDepth = solver.getMaxDepth();
+                return solved || !race.shared.isCancelled();
+            }
+            if (strategy == Strategy.RESTARTS) return searchWithRestarts();
+            SudokuSolver solver = new SudokuSolver(board, race.shared);
+            if (trace != null) solver.setListener(trace);
+            if (strategy == Strategy.PLAIN) {
+                solver.setCellOrder(SudokuSolver.CellOrder.FIRST_EMPTY);
+                solver.setPropagation(false);
+            } else {
+                solver.setStats(stats);
+            }
+            solved = solver.search();
+            count(solver);
+            return solved || !race.shared.isCancelled();
+        }
+
+        // Short randomized searches with a doubling step budget: a run that drew a bad early
+        // guess is abandoned instead of exhausting its subtree
+        private boolean searchWithRestarts() {
+            Budget budget = new Budget(race.shared);
+            SudokuSolver solver = new SudokuSolver(board, budget);
+            if (trace != null) solver.setListener(trace);
+            synchronized (random) {
+                solver.setRandom(random.split());
+            }
+            for (long steps = RESTART_STEPS; ; steps *= 2) {
+                budget.left = steps;
+                solved = solver.search();
+                count(solver);
+                if (solved) return true;
+                if (race.shared.isCancelled()) return false;
+                if (budget.left >= 0) return true; // Finished within budget: no solution
+            }
+        }
+
+        private void count(SudokuSolver solver) {
+            nodes += solver.getNodeCount();
+            guesses += solver.getGuessCount();
+            backtracks += solver.getBacktrackCount();
+            propagations += solver.getPropagationCount();
+            maxDepth = Math.max(maxDepth, solver.getMaxDepth());
+        }
+
+        // Hand the counts of this entrant's search to the process-wide metrics
+        void publish() {
+            SolverMetrics.INSTANCE.recordSearch(nodes, guesses, backtracks, propagations, maxDepth);
+        }
+    }
+
+    // Shared control that also stops the search after a number of steps
+    private static final class Budget extends SearchControl {
+        private final SearchControl parent;
+        long left = 0;                                  // Steps still allowed, negative once exceeded
+
+        Budget(SearchControl parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        boolean proceed() {
+            return left-- > 0 && parent.proceed();
+        }
+
+        @Override
+        boolean isCancelled() {
+            return parent.isCancelled();
+        }
+    }
+
+    // One daemon thread per core, let go after a minute without races
+    private static ExecutorService entrantPool() {
+        int threads = CORES;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "Portfolio entrant");
+                    thread.setDaemon(true); // Never keeps the application alive
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;            // Encode and decode buffers
+
+// Packed binary forms of a 9x9 grid (row-major cells, 0 = empty):
+// NIBBLES:   4 bits per cell, two cells per byte, first cell in the high nibble (41 bytes).
+// CLUE_MASK: an 81-bit mask of the filled cells (11 bytes, first cell in the top bit),
+//            then the filled cells' digits as nibbles (a 25-clue puzzle takes 24 bytes).
+// Both work directly on a ByteBuffer's position and allocate nothing. Files of packed
+// grids start with a 16-byte header: magic, version, format, grid size, spare byte and
+// the grid count (see PuzzleWriter and PuzzleReader).
+class PuzzleCodec {
+    static final int NIBBLES = 0;                       // Format ids stored in the header
+    static final int CLUE_MASK = 1;
+
+    static final int MAGIC = 0x53444B50;                // "SDKP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int COUNT_OFFSET = 8;                  // Position of the grid count in the header
+
+    private static final int CELLS = SudokuBoard.CELLS;
+    static final int NIBBLE_BYTES = (CELLS + 1) / 2;    // 41
+    static final int MASK_BYTES = (CELLS + 7) / 8;      // 11
+    static final int MAX_RECORD_BYTES = Math.max(NIBBLE_BYTES, MASK_BYTES + NIBBLE_BYTES);
+
+    static void encode(int format, int[] cells, ByteBuffer out) {
+        if (format == NIBBLES) {
+            for (int i = 0; i < CELLS; i += 2) {
+                int low = i + 1 < CELLS ? cells[i + 1] : 0;
+                out.put((byte) (cells[i] << 4 | low));
+            }
+            return;
+        }
+        for (int i = 0; i < CELLS; i += 8) { // Clue mask
+            int bits = 0;
+            for (int j = i; j < i + 8; j++) {
+                bits = bits << 1 | (j < CELLS && cells[j] != 0 ? 1 : 0);
+            }
+            out.put((byte) bits);
+        }
+        int pending = -1;                               // Digit waiting for its partner nibble
+        for (int num : cells) {
+            if (num == 0) continue;
+            if (pending < 0) {
+                pending = num;
+            } else {
+                out.put((byte) (pending << 4 | num));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) out.put((byte) (pending << 4));
+    }
+
+    // Decode one grid; throws IllegalArgumentException on a digit outside 0-9
+    static void decode(int format, ByteBuffer in, int[] cells) {
+        if (format == NIBBLES) {
+            decodeNibbles(in, in.position(), cells);
+            in.position(in.position() + NIBBLE_BYTES);
+            return;
+        }
+        int maskStart = in.position();
+        in.position(maskStart + MASK_BYTES);
+        int b = 0;
+        boolean high = true;
+        for (int i = 0; i < CELLS; i++) {
+            boolean filled = (in.get(maskStart + i / 8) & 0x80 >>> (i % 8)) != 0;
+            if (!filled) {
+                cells[i] = 0;
+                continue;
+            }
+            if (high) {
+                b = in.get() & 0xFF;
+                cells[i] = digit(b >>> 4);
+            } else {
+                cells[i] = digit(b & 0xF);
+            }
+            high = !high;
+        }
+    }
+
+    // Decode a NIBBLES grid at an absolute index, leaving the buffer's position alone (for
+    // buffers shared between threads, such as PuzzleStore's mappings)
+    static void decodeNibbles(ByteBuffer in, int index, int[] cells) {
+        for (int i = 0; i < CELLS; i += 2) {
+            int b = in.get(index + i / 2) & 0xFF;
+            cells[i] = digit(b >>> 4);
+            if (i + 1 < CELLS) cells[i + 1] = digit(b & 0xF);
+        }
+    }
+
+    // Bytes the next grid takes, or -1 if the buffer does not hold enough to tell yet
+    static int peekLength(int format, ByteBuffer in) {
+        if (format == NIBBLES) return in.remaining() >= NIBBLE_BYTES ? NIBBLE_BYTES : -1;
+        if (in.remaining() < MASK_BYTES) return -1;
+        int clues = 0;
+        for (int i = 0; i < MASK_BYTES; i++) {
+            clues += Integer.bitCount(in.get(in.position() + i) & 0xFF);
+        }
+        return MASK_BYTES + (clues + 1) / 2;
+    }
+
+    private static int digit(int value) {
+        if (value > SudokuBoard.SIZE) throw new IllegalArgumentException("Bad digit in packed grid: " + value);
+        return value;
+    }
+}
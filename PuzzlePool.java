@@ -0,0 +1,222 @@
+import java.util.SplittableRandom;                    // For variants on a miss
+import java.util.concurrent.ArrayBlockingQueue;       // Ready puzzles per difficulty
+import java.util.concurrent.atomic.LongAccumulator;   // Slowest refill
+import java.util.concurrent.atomic.LongAdder;         // Hit, miss and latency counters
+
+// Ready-made puzzles for each difficulty, so taking one is a queue pop instead of a
+// generation run. Background workers refill a difficulty once its stock falls below
+// LOW_WATER and stop when it is back at CAPACITY. When a queue is empty, poll() counts a
+// miss and serves a random symmetric variant of the last puzzle it handed out for that
+// difficulty; before the first hit there is nothing to vary, and poll() returns null
+// without waiting, so the GUI can call it on the EDT and run generate() on a thread of
+// its own. Variants need GridTransformer, which handles only the classic 9x9 grid, so a
+// pool of another board size leaves every miss to generate(). Difficulties harder than
+// SudokuGenerator.hardestFor() the board size are never generated ahead.
+class PuzzlePool {
+    static final int CAPACITY = 8;                      // Puzzles kept per difficulty
+    static final int LOW_WATER = 3;                     // Refilling starts below this stock
+
+    // A generated puzzle with its solution
+    private static final class Entry {
+        final int[][] puzzle;
+        final int[][] solution;
+        Difficulty difficulty;
+
+        Entry(int boardSize) {
+            puzzle = new int[boardSize][boardSize];
+            solution = new int[boardSize][boardSize];
+        }
+    }
+
+    private final int boardSize;                        // Cells per row of the puzzles
+    private final Difficulty hardest;                   // Hardest difficulty stocked at this size
+    private final ArrayBlockingQueue<Entry>[] queues;  // Indexed by Difficulty.ordinal()
+    private final int[] pending;                        // Puzzles being generated per difficulty (guarded by lock)
+    private final boolean[] refilling;                  // Difficulty is between low water and full (guarded by lock)
+    private final Object lock = new Object();           // Wakes the workers
+    private final Thread[] workers;
+    private final SudokuGenerator fallback;             // Used by generate() (guarded by itself)
+    private final Object variants = new Object();       // Guards the three fields below
+    private final GridTransformer transformer = new GridTransformer(); // Makes variants on a miss
+    private final SplittableRandom random = new SplittableRandom();
+    private final Entry[] lastServed;                   // Last puzzle handed out per difficulty
+    private volatile boolean closed = false;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refills = new LongAdder();      // Puzzles generated by the workers
+    private final LongAdder refillNanos = new LongAdder();  // Time the workers spent generating them
+    private final LongAccumulator maxRefillNanos = new LongAccumulator(Math::max, 0);
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array of queues
+    PuzzlePool(int boardSize, int workerCount) {
+        this.boardSize = boardSize;
+        hardest = SudokuGenerator.hardestFor(boardSize);
+        fallback = new SudokuGenerator(boardSize, new SplittableRandom());
+        int n = Difficulty.values().length;
+        queues = new ArrayBlockingQueue[n];
+        pending = new int[n];
+        refilling = new boolean[n];
+        lastServed = new Entry[n];
+        for (int i = 0; i < n; i++) {
+            queues[i] = new ArrayBlockingQueue<>(CAPACITY);
+            refilling[i] = i <= hardest.ordinal(); // Start out filling every reachable difficulty
+        }
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+    }
+
+    // One worker per spare core, at least one and at most four
+    PuzzlePool(int boardSize) {
+        this(boardSize, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    PuzzlePool() {
+        this(SudokuBoard.SIZE);
+    }
+
+    // Copy a puzzle of the given difficulty and its solution into the arrays and return its
+    // rating, or return null if none is ready and there is no earlier puzzle to vary.
+    // Never waits for a worker or generates, so it is safe on the EDT.
+    Difficulty poll(Difficulty difficulty, int[][] puzzle, int[][] solution) {
+        Entry entry = queues[difficulty.ordinal()].poll();
+        Difficulty rating = null;
+        if (entry != null) {
+            hits.increment();
+            copy(entry.puzzle, puzzle);
+            copy(entry.solution, solution);
+            rating = entry.difficulty;
+            synchronized (variants) {
+                lastServed[difficulty.ordinal()] = entry;
+            }
+        } else {
+            misses.increment();
+            synchronized (variants) {
+                Entry seed = lastServed[difficulty.ordinal()];
+                if (seed != null && boardSize == SudokuBoard.SIZE) {
+                    transformer.randomize(random); // Same difficulty, looks like a new puzzle
+                    transformer.apply(seed.puzzle, puzzle);
+                    transformer.apply(seed.solution, solution);
+                    rating = seed.difficulty;
+                }
+            }
+        }
+        synchronized (lock) {
+            if (stock(difficulty.ordinal()) < LOW_WATER && difficulty.compareTo(hardest) <= 0) {
+                refilling[difficulty.ordinal()] = true;
+                lock.notifyAll();
+            }
+        }
+        return rating;
+    }
+
+    // Generate a puzzle on the calling thread after poll() came back empty; returns its
+    // rating (which can differ from the request if the generator missed it). Takes as
+    // long as generation does, so never call it on the EDT.
+    Difficulty generate(Difficulty difficulty, int[][] puzzle, int[][] solution) {
+        synchronized (fallback) {
+            return fallback.generate(puzzle, solution, difficulty);
+        }
+    }
+
+    // Puzzles ready for a difficulty
+    int size(Difficulty difficulty) {
+        return queues[difficulty.ordinal()].size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    // Mean time a worker needed to generate one puzzle, in milliseconds
+    double getMeanRefillMillis() {
+        long count = refills.sum();
+        return count == 0 ? 0 : refillNanos.sum() / 1e6 / count;
+    }
+
+    double getMaxRefillMillis() {
+        return maxRefillNanos.get() / 1e6;
+    }
+
+    // Stop the workers; puzzles already in the pool can still be taken
+    void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Puzzle pool: %d hits, %d misses, %d refills (mean %.1f ms, max %.1f ms)",
+                getHitCount(), getMissCount(), refills.sum(), getMeanRefillMillis(), getMaxRefillMillis());
+    }
+
+    // Stock counting puzzles already being generated (caller holds lock)
+    private int stock(int index) {
+        return queues[index].size() + pending[index];
+    }
+
+    // Difficulty a worker should generate next, or -1 if every pool is stocked (caller holds lock)
+    private int nextToRefill() {
+        for (int i = 0; i < queues.length; i++) {
+            if (!refilling[i]) continue;
+            if (stock(i) < CAPACITY) return i;
+            refilling[i] = false; // Full again: wait for the next drop below low water
+        }
+        return -1;
+    }
+
+    private static void copy(int[][] from, int[][] to) {
+        for (int row = 0; row < from.length; row++) {
+            System.arraycopy(from[row], 0, to[row], 0, from[row].length);
+        }
+    }
+
+    // Generates puzzles for whichever difficulty is refilling, sleeping while none is
+    class Worker extends Thread {
+        private final SudokuGenerator generator; // Own generator, not shared
+
+        Worker(int index) {
+            super("Puzzle pool worker " + index);
+            generator = new SudokuGenerator(boardSize, new SplittableRandom());
+            setDaemon(true);
+            setPriority(Thread.MIN_PRIORITY); // Stay out of the way of the GUI and the solver
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                int index;
+                synchronized (lock) {
+                    while ((index = nextToRefill()) < 0) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return; // Pool closed
+                        }
+                    }
+                    pending[index]++;
+                }
+                Entry entry = new Entry(boardSize);
+                long start = System.nanoTime();
+                entry.difficulty = generator.generate(entry.puzzle, entry.solution, Difficulty.values()[index]);
+                long nanos = System.nanoTime() - start;
+                refills.increment();
+                refillNanos.add(nanos);
+                maxRefillNanos.accumulate(nanos);
+                synchronized (lock) {
+                    pending[index]--;
+                    queues[index].offer(entry); // Cannot be full: stock stayed below CAPACITY
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;                     // Input buffer
+import java.nio.channels.ReadableByteChannel;
+
+// Streams packed grids (PuzzleCodec) from a channel through one direct buffer; read()
+// decodes the next grid into the caller's array without allocating.
+class PuzzleReader implements AutoCloseable {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final int format;
+    private boolean eof = false;
+
+    PuzzleReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip(); // Start out empty
+        if (!fill(PuzzleCodec.HEADER_BYTES)) throw new EOFException("Missing packed puzzle header");
+        if (buffer.getInt() != PuzzleCodec.MAGIC) throw new IOException("Not a packed puzzle file");
+        int version = buffer.get();
+        format = buffer.get();
+        int size = buffer.get();
+        buffer.get(); // Spare
+        buffer.getLong(); // Grid count, not needed to stream the grids
+        if (version != PuzzleCodec.VERSION) throw new IOException("Unsupported packed puzzle version: " + version);
+        if (format != PuzzleCodec.NIBBLES && format != PuzzleCodec.CLUE_MASK) throw new IOException("Unknown packed format: " + format);
+        if (size != SudokuBoard.SIZE) throw new IOException("Packed grids are " + size + "x" + size + ", not " + SudokuBoard.SIZE + "x" + SudokuBoard.SIZE);
+    }
+
+    // Decode the next grid; returns false at the end of the stream
+    boolean read(int[] cells) throws IOException {
+        int length = PuzzleCodec.peekLength(format, buffer);
+        if (length < 0) { // Not even the length is buffered yet
+            if (!fill(format == PuzzleCodec.NIBBLES ? PuzzleCodec.NIBBLE_BYTES : PuzzleCodec.MASK_BYTES)) return false;
+            length = PuzzleCodec.peekLength(format, buffer);
+        }
+        fill(length);
+        PuzzleCodec.decode(format, buffer, cells);
+        return true;
+    }
+
+    // Make sure at least n bytes are buffered; false if the stream ends before any arrive
+    private boolean fill(int n) throws IOException {
+        if (buffer.remaining() >= n) return true;
+        buffer.compact();
+        while (buffer.position() < n && !eof) {
+            if (channel.read(buffer) < 0) eof = true;
+        }
+        buffer.flip();
+        if (buffer.remaining() == 0) return false;
+        if (buffer.remaining() < n) throw new EOFException("Truncated packed grid");
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;                     // Header and pending appends
+import java.nio.MappedByteBuffer;               // The mapped records
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;              // One writer per file
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;                        // For growing the segment table and rating indexes
+import java.util.SplittableRandom;              // For picking puzzles
+
+// Puzzle library in one file of fixed-width records, read through memory mappings: a
+// lookup by id is an offset computation and a decode straight out of the page cache,
+// with nothing read onto the heap first, and every JVM on the host that maps the file
+// shares the same cached pages. A record is the puzzle and its solution as PuzzleCodec
+// nibbles, then the rating and the clue count: 84 bytes, about 84 MB per million
+// puzzles. The 16-byte header holds magic, version, grid size, record width and count.
+// Appends are buffered and written past the last record with positional writes; flush()
+// writes them first and the new count after, and readers never look past the count they
+// have seen, so they only ever see complete records (in this JVM at once, in others
+// after refresh()). One writer per file, enforced with a file lock.
+class PuzzleStore implements AutoCloseable {
+    static final int MAGIC = 0x53444B53;                // "SDKS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;          // Position of the record count in the header
+    static final int RECORD_BYTES = 2 * PuzzleCodec.NIBBLE_BYTES + 2; // 84
+    private static final int SOLUTION_OFFSET = PuzzleCodec.NIBBLE_BYTES;
+    private static final int RATING_OFFSET = 2 * PuzzleCodec.NIBBLE_BYTES;
+    static final int RECORDS_PER_SEGMENT = 1 << 24;    // Records per mapping (1.4 GB; a mapping is at most 2 GB)
+    private static final int PICK_ATTEMPTS = 64;       // Random probes for a difficulty before using its index
+    private static final Difficulty[] RATINGS = Difficulty.values();
+
+    private final FileChannel channel;
+    private final FileLock lock;                        // Held while open for appending, else null
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES); // Guarded by this
+    private final ByteBuffer pending;                   // Appended records not written yet, null if read-only
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0]; // Replaced on remap, never changed in place
+    private volatile long count;                        // Records readers may access
+    private final long[][] rated = new long[RATINGS.length][]; // Ids of each rating, built when probes miss; guarded by itself
+    private final int[] ratedCount = new int[RATINGS.length];
+    private final long[] indexed = new long[RATINGS.length];  // Records scanned into each index so far
+
+    // Open a store file; a writable one is created if missing
+    PuzzleStore(Path path, boolean writable) throws IOException {
+        channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            lock = writable ? lockForWriting(path) : null;
+            pending = writable ? ByteBuffer.allocateDirect(RECORD_BYTES * 1024) : null;
+            if (writable && channel.size() == 0) { // New store
+                header.putInt(MAGIC).put((byte) VERSION).put((byte) SudokuBoard.SIZE)
+                      .putShort((short) RECORD_BYTES).putLong(0).flip();
+                while (header.hasRemaining()) channel.write(header, header.position());
+            }
+            count = readHeader();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Records that can be read
+    long count() {
+        return count;
+    }
+
+    // Pick up records another process has appended since the store was opened
+    synchronized void refresh() throws IOException {
+        if (pending != null) return; // This store is the only writer
+        header.clear();
+        readFully(header, COUNT_OFFSET);
+        long stored = header.getLong(COUNT_OFFSET);
+        if (stored > count) count = stored;
+    }
+
+    // --- Reading, straight from the mapping ---
+
+    void getPuzzle(long id, int[] cells) throws IOException {
+        PuzzleCodec.decodeNibbles(segmentOf(id), offsetOf(id), cells);
+    }
+
+    void getSolution(long id, int[] cells) throws IOException {
+        PuzzleCodec.decodeNibbles(segmentOf(id), offsetOf(id) + SOLUTION_OFFSET, cells);
+    }
+
+    // Same for grids
+    void getPuzzle(long id, int[][] grid) throws IOException {
+        decode(id, 0, grid);
+    }
+
+    void getSolution(long id, int[][] grid) throws IOException {
+        decode(id, SOLUTION_OFFSET, grid);
+    }
+
+    Difficulty getRating(long id) throws IOException {
+        return RATINGS[segmentOf(id).get(offsetOf(id) + RATING_OFFSET)];
+    }
+
+    // Id of a random record of a difficulty (any if null), or -1 if the store has none.
+    // Random probes find common ratings; a rare one is looked up in an index of its ids.
+    long pick(Difficulty difficulty, SplittableRandom random) throws IOException {
+        long n = count;
+        for (int i = 0; i < PICK_ATTEMPTS && n > 0; i++) {
+            long id = random.nextLong(n);
+            if (difficulty == null || getRating(id) == difficulty) return id;
+        }
+        if (difficulty == null) return -1;
+        synchronized (rated) {
+            int r = difficulty.ordinal();
+            long[] ids = index(r, n);
+            return ratedCount[r] == 0 ? -1 : ids[random.nextInt(ratedCount[r])];
+        }
+    }
+
+    // Ids of records with a rating, scanning the records added since the last call
+    private long[] index(int r, long n) throws IOException {
+        long[] ids = rated[r] == null ? new long[16] : rated[r];
+        int found = ratedCount[r];
+        for (long id = indexed[r]; id < n; id++) {
+            if (segmentOf(id).get(offsetOf(id) + RATING_OFFSET) != r) continue;
+            if (found == ids.length) ids = Arrays.copyOf(ids, found * 2);
+            ids[found++] = id;
+        }
+        rated[r] = ids;
+        ratedCount[r] = found;
+        indexed[r] = n;
+        return ids;
+    }
+
+    // --- Appending ---
+
+    // Queue records encoded with encode(). Readers see them after the next flush().
+    synchronized void appendEncoded(byte[] records, int offset, int length) throws IOException {
+        checkWritable();
+        if (length % RECORD_BYTES != 0) throw new IllegalArgumentException("Not whole records: " + length + " bytes");
+        while (length > 0) { // The buffer holds whole records, so every piece is whole records too
+            if (!pending.hasRemaining()) flush();
+            int piece = Math.min(length, pending.remaining());
+            pending.put(records, offset, piece);
+            offset += piece;
+            length -= piece;
+        }
+    }
+
+    // Write the queued records, then publish the new count
+    synchronized void flush() throws IOException {
+        checkWritable();
+        int added = pending.position() / RECORD_BYTES;
+        if (added == 0) return;
+        long position = HEADER_BYTES + count * RECORD_BYTES;
+        pending.flip();
+        while (pending.hasRemaining()) position += channel.write(pending, position);
+        pending.clear();
+        header.clear().putLong(COUNT_OFFSET, count + added).position(COUNT_OFFSET);
+        while (header.hasRemaining()) channel.write(header, header.position());
+        count += added; // Only now may readers in this JVM look at the new records
+    }
+
+    // One record: puzzle and solution as nibbles, rating, clue count
+    static void encode(int[] puzzle, int[] solution, Difficulty rating, ByteBuffer out) {
+        PuzzleCodec.encode(PuzzleCodec.NIBBLES, puzzle, out);
+        PuzzleCodec.encode(PuzzleCodec.NIBBLES, solution, out);
+        int clues = 0;
+        for (int num : puzzle) {
+            if (num != 0) clues++;
+        }
+        out.put((byte) rating.ordinal()).put((byte) clues);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (pending != null) flush();
+        } finally {
+            channel.close(); // Releases the lock too
+            segments = new MappedByteBuffer[0]; // Mappings stay valid until collected
+        }
+    }
+
+    // Mapping holding record id, mapping or remapping its segment if needed
+    private MappedByteBuffer segmentOf(long id) throws IOException {
+        if (id < 0 || id >= count) throw new IndexOutOfBoundsException("No puzzle " + id + " in a store of " + count);
+        int s = (int) (id / RECORDS_PER_SEGMENT);
+        int end = (int) (id % RECORDS_PER_SEGMENT + 1) * RECORD_BYTES;
+        MappedByteBuffer[] mapped = segments;
+        if (s < mapped.length && mapped[s] != null && mapped[s].capacity() >= end) return mapped[s];
+        return map(s, end);
+    }
+
+    // Map a segment up to the end of the file, so one remap covers every record written so far
+    private synchronized MappedByteBuffer map(int s, int end) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (s < mapped.length && mapped[s] != null && mapped[s].capacity() >= end) return mapped[s]; // Mapped meanwhile
+        long start = HEADER_BYTES + (long) s * RECORDS_PER_SEGMENT * RECORD_BYTES;
+        long records = Math.min(RECORDS_PER_SEGMENT, (channel.size() - start) / RECORD_BYTES);
+        mapped = Arrays.copyOf(mapped, Math.max(mapped.length, s + 1));
+        mapped[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, records * RECORD_BYTES);
+        segments = mapped;
+        return mapped[s];
+    }
+
+    private static int offsetOf(long id) {
+        return (int) (id % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    private void decode(long id, int field, int[][] grid) throws IOException {
+        MappedByteBuffer segment = segmentOf(id);
+        int index = offsetOf(id) + field;
+        for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+            int b = segment.get(index + cell / 2) & 0xFF;
+            grid[cell / SudokuBoard.SIZE][cell % SudokuBoard.SIZE] = cell % 2 == 0 ? b >>> 4 : b & 0xF;
+        }
+    }
+
+    // Validate the header; returns the record count
+    private long readHeader() throws IOException {
+        header.clear();
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a puzzle store");
+        int version = header.get(4);
+        int size = header.get(5);
+        int recordBytes = header.getShort(6);
+        if (version != VERSION) throw new IOException("Unsupported puzzle store version: " + version);
+        if (size != SudokuBoard.SIZE) throw new IOException("Stored grids are " + size + "x" + size + ", not " + SudokuBoard.SIZE + "x" + SudokuBoard.SIZE);
+        if (recordBytes != RECORD_BYTES) throw new IOException("Unexpected record width: " + recordBytes);
+        return header.getLong(COUNT_OFFSET);
+    }
+
+    // Fill the header buffer from its position on, reading from the same file offset
+    private void readFully(ByteBuffer buffer, int offset) throws IOException {
+        buffer.position(offset);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) throw new EOFException("Truncated puzzle store header");
+        }
+    }
+
+    private FileLock lockForWriting(Path path) throws IOException {
+        FileLock held;
+        try {
+            held = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            held = null; // Already open for appending in this JVM
+        }
+        if (held == null) throw new IOException(path + " is already open for appending");
+        return held;
+    }
+
+    private void checkWritable() {
+        if (pending == null) throw new IllegalStateException("Puzzle store is open read-only");
+    }
+}
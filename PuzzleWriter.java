@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;                     // Output buffer
+import java.nio.channels.SeekableByteChannel;   // For patching the count on close
+import java.nio.channels.WritableByteChannel;
+
+// Streams packed grids (PuzzleCodec) to a channel through one direct buffer, with no
+// allocation per grid. The header is written first with the expected count (-1 if
+// unknown); on close the real count is patched in when the channel is seekable.
+class PuzzleWriter implements AutoCloseable {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final long start;                           // Channel position of the header, -1 if not seekable
+    private long count = 0;
+
+    PuzzleWriter(WritableByteChannel channel, int format, long expectedCount) throws IOException {
+        this.channel = channel;
+        start = channel instanceof SeekableByteChannel ? ((SeekableByteChannel) channel).position() : -1;
+        buffer.putInt(PuzzleCodec.MAGIC).put((byte) PuzzleCodec.VERSION).put((byte) format)
+              .put((byte) SudokuBoard.SIZE).put((byte) 0).putLong(expectedCount);
+    }
+
+    // Copy already encoded grids (count of them) in this writer's format
+    void writeEncoded(byte[] records, int offset, int length, int grids) throws IOException {
+        if (buffer.remaining() < length) flush();
+        if (buffer.remaining() < length) {
+            channel.write(ByteBuffer.wrap(records, offset, length)); // Larger than the buffer
+        } else {
+            buffer.put(records, offset, length);
+        }
+        count += grids;
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (start >= 0) {
+            SeekableByteChannel seekable = (SeekableByteChannel) channel;
+            long end = seekable.position();
+            buffer.putLong(count).flip();
+            seekable.position(start + PuzzleCodec.COUNT_OFFSET);
+            while (buffer.hasRemaining()) seekable.write(buffer);
+            buffer.clear();
+            seekable.position(end);
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+// Lets another thread pause, single-step, resume or cancel a running search.
+// The solver calls proceed() before every step; the fast path is two volatile reads.
+class SearchControl {
+    private volatile boolean paused = false;            // Solver waits in proceed() while set
+    private volatile boolean cancelled = false;         // Solver stops at its next proceed()
+    private int steps = 0;                              // Steps granted while paused (guarded by this)
+
+    synchronized void pause() {
+        paused = true;
+    }
+
+    synchronized void resume() {
+        paused = false;
+        steps = 0;                                      // Unused steps must not carry over to the next pause
+        notifyAll();
+    }
+
+    // Let a paused search take exactly one more step
+    synchronized void step() {
+        steps++;
+        notifyAll();
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Called by the solver thread before each step: blocks while paused,
+    // returns false once the search should stop
+    boolean proceed() {
+        if (!paused && !cancelled) return true;
+        return awaitPermission();
+    }
+
+    private synchronized boolean awaitPermission() {
+        while (paused && !cancelled && steps == 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Preserve interrupt status
+                cancelled = true;                   // An interrupted solver thread stops
+            }
+        }
+        if (cancelled) return false;
+        if (paused) steps--;                        // Consume the granted step
+        return true;
+    }
+}
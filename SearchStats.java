@@ -0,0 +1,119 @@
+// Live progress of one search, written by the solving thread and read by the GUI at its
+// own pace. There is a single writer, so plain volatile fields are enough: the solver
+// never locks or waits, and a reader sees each counter as of some recent moment.
+// Engines searching on many threads report finished pieces through add(), which locks.
+// The explored fraction is Knuth's estimate: a node with b branches splits its share of
+// the tree into b equal parts, and each branch taken back adds its part to the total.
+class SearchStats {
+    private final double[] share;                       // Share of the tree under the node at each depth
+    private final double[] before;                      // Explored total when the node at each depth was entered
+    private final int[] branches;                       // Branches of the node at each depth
+    private final int[] done;                           // Branches of it taken back so far
+
+    private volatile long nodes = 0;                    // Branches tried
+    private volatile long guesses = 0;                  // Of those, in nodes with more than one branch
+    private volatile long backtracks = 0;
+    private volatile int depth = 0;                     // Branches on the current path
+    private volatile double explored = 0;               // Estimated fraction of the tree finished
+    private volatile long startNanos = 0;
+    private volatile long endNanos = 0;                 // 0 while running
+    private volatile boolean running = false;
+
+    SearchStats(int maxDepth) {
+        share = new double[maxDepth + 2];
+        before = new double[maxDepth + 2];
+        branches = new int[maxDepth + 2];
+        done = new int[maxDepth + 2];
+    }
+
+    // --- Solver thread ---
+
+    void start() {
+        nodes = 0;
+        guesses = 0;
+        backtracks = 0;
+        depth = 0;
+        explored = 0;
+        share[0] = 1;
+        endNanos = 0;
+        startNanos = System.nanoTime();
+        running = true;
+    }
+
+    // A node with n branches was entered at the current depth
+    void enter(int n) {
+        int d = depth;
+        branches[d] = n;
+        done[d] = 0;
+        before[d] = explored;
+    }
+
+    // The next branch of the current node is tried
+    void tryBranch() {
+        int d = depth;
+        share[d + 1] = share[d] / branches[d];
+        nodes++;
+        if (branches[d] > 1) guesses++;
+        depth = d + 1;
+    }
+
+    // The branch tried last was taken back
+    void backtrack() {
+        int d = depth - 1;
+        done[d]++;
+        explored = before[d] + done[d] * share[d] / branches[d];
+        backtracks++;
+        depth = d;
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+        running = false;
+    }
+
+    // --- Engines searching on many threads, between start() and finish() ---
+
+    // Add the counts of a piece of the search and the fraction of the tree it finished;
+    // depth shows the deepest piece so far
+    synchronized void add(long nodeCount, long guessCount, long backtrackCount, int pieceDepth, double fraction) {
+        nodes += nodeCount;
+        guesses += guessCount;
+        backtracks += backtrackCount;
+        if (pieceDepth > depth) depth = pieceDepth;
+        explored += fraction;
+    }
+
+    // --- Any thread ---
+
+    long getNodeCount() {
+        return nodes;
+    }
+
+    long getGuessCount() {
+        return guesses;
+    }
+
+    long getBacktrackCount() {
+        return backtracks;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    double getExplored() {
+        return explored;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    // Time since start, or the duration of the finished search
+    long getElapsedNanos() {
+        long start = startNanos;
+        if (start == 0) return 0;
+        long end = endNanos;
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+}
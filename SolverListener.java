@@ -0,0 +1,14 @@
+// Receives search events from a solver. Callbacks run on the solver's thread,
+// so GUI subscribers must hand rendering over to the event queue themselves.
+interface SolverListener {
+    SolverListener NONE = new SolverListener() {}; // Listener that ignores every event
+
+    // A number was placed in (row, col) as a trial
+    default void onTry(int row, int col, int num) {}
+
+    // A number was deduced for (row, col) by constraint propagation, without guessing
+    default void onPropagate(int row, int col, int num) {}
+
+    // The number tried or deduced in (row, col) led nowhere and was removed again
+    default void onBacktrack(int row, int col, int num) {}
+}
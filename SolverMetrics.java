@@ -0,0 +1,188 @@
+import java.lang.management.ManagementFactory; // Platform MBean server
+import java.util.Map;
+import java.util.TreeMap;                           // Win counts sorted by engine name
+import java.util.concurrent.ConcurrentHashMap;      // Win counts per portfolio engine
+import java.util.concurrent.atomic.LongAccumulator; // Maxima
+import java.util.concurrent.atomic.LongAdder;       // Low-contention counters
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Process-wide search and generation counters, readable in JConsole or any JMX client as
+// sudoku:type=SolverMetrics once register() has run. Engines count into plain fields
+// while searching and publish the totals here once per search, so the search loop never
+// touches shared state and the cost is a few adder updates per solve.
+class SolverMetrics implements SolverMetricsMBean {
+    static final SolverMetrics INSTANCE = new SolverMetrics();
+    static final String NAME = "sudoku:type=SolverMetrics";
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L; // Shortest interval a rate is measured over
+
+    private final LongAdder searches = new LongAdder();     // Every search, solves and solution counts
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder propagations = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder solves = new LongAdder();       // Calls of SudokuEngine.solve()
+    private final LongAdder solved = new LongAdder();       // Those that found a solution
+    private final LongAdder solveNanos = new LongAdder();
+    private final LongAdder generations = new LongAdder();  // Puzzles made by SudokuGenerator
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAccumulator maxGenerationNanos = new LongAccumulator(Math::max, 0);
+    private final ConcurrentHashMap<String, LongAdder> wins = new ConcurrentHashMap<>(); // Portfolio races won, by engine
+
+    private long rateTime = System.nanoTime();              // Last rate sample (guarded by this)
+    private long rateSolves = 0;
+    private double solveRate = 0;
+    private boolean registered = false;                     // Guarded by this
+
+    // Publish the counts of one finished search
+    void recordSearch(long nodes, long guesses, long backtracks, long propagations, int maxDepth) {
+        searches.increment();
+        this.nodes.add(nodes);
+        this.guesses.add(guesses);
+        this.backtracks.add(backtracks);
+        this.propagations.add(propagations);
+        this.maxDepth.accumulate(maxDepth);
+    }
+
+    // Publish the outcome and duration of one solve() (its search is recorded separately)
+    void recordSolve(long nanos, boolean success) {
+        solves.increment();
+        if (success) solved.increment();
+        solveNanos.add(nanos);
+    }
+
+    void recordGeneration(long nanos) {
+        generations.increment();
+        generationNanos.add(nanos);
+        maxGenerationNanos.accumulate(nanos);
+    }
+
+    // A portfolio race was won by the named engine
+    void recordWin(String engine) {
+        wins.computeIfAbsent(engine, k -> new LongAdder()).increment();
+    }
+
+    // Make the counters visible over JMX; later calls do nothing
+    synchronized void register() {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(NAME));
+            registered = true;
+        } catch (JMException e) {
+            System.err.println("Solver metrics not available over JMX: " + e.getMessage());
+        }
+    }
+
+    // --- SolverMetricsMBean ---
+
+    @Override
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getGuessCount() {
+        return guesses.sum();
+    }
+
+    @Override
+    public long getBacktrackCount() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getPropagationCount() {
+        return propagations.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolvedCount() {
+        return solved.sum();
+    }
+
+    // Solves per second over the time since the previous sample at least a window ago
+    @Override
+    public synchronized double getSolvesPerSecond() {
+        long now = System.nanoTime();
+        if (now - rateTime >= RATE_WINDOW_NANOS) {
+            long count = solves.sum();
+            solveRate = (count - rateSolves) * 1e9 / (now - rateTime);
+            rateTime = now;
+            rateSolves = count;
+        }
+        return solveRate;
+    }
+
+    @Override
+    public double getMeanSolveMicros() {
+        long count = solves.sum();
+        return count == 0 ? 0 : solveNanos.sum() / 1e3 / count;
+    }
+
+    @Override
+    public long getGenerationCount() {
+        return generations.sum();
+    }
+
+    @Override
+    public double getMeanGenerationMillis() {
+        long count = generations.sum();
+        return count == 0 ? 0 : generationNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxGenerationMillis() {
+        return maxGenerationNanos.get() / 1e6;
+    }
+
+    // Races won per engine, as "engine=count" pairs sorted by name
+    @Override
+    public String getPortfolioWins() {
+        TreeMap<String, Long> sorted = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : wins.entrySet()) {
+            sorted.put(entry.getKey(), entry.getValue().sum());
+        }
+        return sorted.toString();
+    }
+
+    // Start every counter over (totals seen by JMX clients drop back to zero)
+    @Override
+    public synchronized void reset() {
+        for (LongAdder adder : new LongAdder[] {searches, nodes, guesses, backtracks, propagations,
+                solves, solved, solveNanos, generations, generationNanos}) {
+            adder.reset();
+        }
+        maxDepth.reset();
+        maxGenerationNanos.reset();
+        wins.clear();
+        rateTime = System.nanoTime();
+        rateSolves = 0;
+        solveRate = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Solver: %d solves (%d solved, mean %.1f us), %d nodes, %d guesses, %d backtracks, "
+                        + "%d propagations, max depth %d; generator: %d puzzles (mean %.1f ms, max %.1f ms); "
+                        + "portfolio wins: %s",
+                getSolveCount(), getSolvedCount(), getMeanSolveMicros(), getNodeCount(), getGuessCount(),
+                getBacktrackCount(), getPropagationCount(), getMaxDepth(), getGenerationCount(),
+                getMeanGenerationMillis(), getMaxGenerationMillis(), getPortfolioWins());
+    }
+}
@@ -0,0 +1,33 @@
+// JMX view of SolverMetrics. Standard MBean interfaces must be public; the attributes
+// are totals since startup (or the last reset) unless the name says otherwise.
+public interface SolverMetricsMBean {
+    long getSearchCount();                  // Searches of every kind, including uniqueness checks
+
+    long getNodeCount();                    // Numbers placed as trials
+
+    long getGuessCount();                   // Trials in cells with more than one candidate
+
+    long getBacktrackCount();               // Trials taken back
+
+    long getPropagationCount();             // Cells filled by deduction
+
+    int getMaxDepth();                      // Deepest search stack seen
+
+    long getSolveCount();
+
+    long getSolvedCount();
+
+    double getSolvesPerSecond();            // Recent rate
+
+    double getMeanSolveMicros();
+
+    long getGenerationCount();
+
+    double getMeanGenerationMillis();
+
+    double getMaxGenerationMillis();
+
+    String getPortfolioWins();              // Races won per engine of the portfolio solver
+
+    void reset();
+}
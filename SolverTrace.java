@@ -0,0 +1,139 @@
+import java.util.Arrays;                  // For growing the event array
+
+// Compact log of a solve, recorded as a SolverListener. Every try, deduction and backtrack
+// is one fixed-width 32-bit record (type | num << 8 | cell << 16), so recording is an
+// array store. Every KEYFRAME_INTERVAL events the display state of all cells is saved,
+// which lets a TracePlayer seek anywhere by replaying at most one interval.
+class SolverTrace implements SolverListener {
+    // Event types
+    static final int TRY = 1;               // Number placed as a trial
+    static final int PROPAGATE = 2;         // Number placed by deduction
+    static final int UNDO_TRY = 3;          // Trial number taken back
+    static final int UNDO_PROPAGATE = 4;    // Deduced number taken back
+
+    static final int KEYFRAME_INTERVAL = 4096;          // Events between saved display states
+    static final int MAX_EVENTS = 1 << 24;              // Recording stops here (64 MB of events)
+
+    private int[] events = new int[KEYFRAME_INTERVAL];
+    private int size = 0;
+    private int[][] keyframes = new int[16][];          // Display state after k * KEYFRAME_INTERVAL events
+    private int keyframeCount = 0;
+    private final int boardSize;                        // Cells per row of the solved board
+    private final int[] state;                          // Current display state, packed like BoardSnapshot
+    private boolean truncated = false;                  // Events past MAX_EVENTS were dropped
+
+    // Empty trace of a solve on a boardSize x boardSize board
+    SolverTrace(int boardSize) {
+        this.boardSize = boardSize;
+        state = new int[boardSize * boardSize];
+        saveKeyframe(); // Keyframe 0: no solver cells shown
+    }
+
+    @Override
+    public void onTry(int row, int col, int num) {
+        record(TRY, row * boardSize + col, num);
+    }
+
+    @Override
+    public void onPropagate(int row, int col, int num) {
+        record(PROPAGATE, row * boardSize + col, num);
+    }
+
+    @Override
+    public void onBacktrack(int row, int col, int num) {
+        int cell = row * boardSize + col;
+        boolean deduced = BoardSnapshot.kindOf(state[cell]) == BoardSnapshot.PROPAGATED;
+        record(deduced ? UNDO_PROPAGATE : UNDO_TRY, cell, num);
+    }
+
+    // Append one event and keep the display state (and keyframes) up to date
+    void record(int type, int cell, int num) {
+        if (size == MAX_EVENTS) {
+            truncated = true;
+            return;
+        }
+        if (size == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        int event = type | num << 8 | cell << 16;
+        events[size++] = event;
+        state[cell] = apply(event);
+        if (size % KEYFRAME_INTERVAL == 0) {
+            saveKeyframe();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Cells of the solved board
+    int cellCount() {
+        return state.length;
+    }
+
+    int event(int index) {
+        return events[index];
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    // Display state of every cell after k * KEYFRAME_INTERVAL events
+    int[] keyframe(int k) {
+        return keyframes[k];
+    }
+
+    // Feed the recorded events, in order, to another listener
+    void replayTo(SolverListener listener) {
+        for (int i = 0; i < size; i++) {
+            int event = events[i];
+            int cell = cellOf(event);
+            int row = cell / boardSize;
+            int col = cell % boardSize;
+            switch (typeOf(event)) {
+                case TRY:       listener.onTry(row, col, numOf(event)); break;
+                case PROPAGATE: listener.onPropagate(row, col, numOf(event)); break;
+                default:        listener.onBacktrack(row, col, numOf(event)); break;
+            }
+        }
+    }
+
+    static int typeOf(int event) {
+        return event & 0xFF;
+    }
+
+    static int numOf(int event) {
+        return (event >>> 8) & 0xFF;
+    }
+
+    static int cellOf(int event) {
+        return event >>> 16;
+    }
+
+    // Cell state (BoardSnapshot packing) after the event
+    static int apply(int event) {
+        switch (typeOf(event)) {
+            case TRY:       return numOf(event) | BoardSnapshot.TRY << 8;
+            case PROPAGATE: return numOf(event) | BoardSnapshot.PROPAGATED << 8;
+            default:        return BoardSnapshot.EMPTY;
+        }
+    }
+
+    // Cell state (BoardSnapshot packing) before the event
+    static int revert(int event) {
+        switch (typeOf(event)) {
+            case UNDO_TRY:       return numOf(event) | BoardSnapshot.TRY << 8;
+            case UNDO_PROPAGATE: return numOf(event) | BoardSnapshot.PROPAGATED << 8;
+            default:             return BoardSnapshot.EMPTY;
+        }
+    }
+
+    private void saveKeyframe() {
+        if (keyframeCount == keyframes.length) {
+            keyframes = Arrays.copyOf(keyframes, keyframeCount * 2);
+        }
+        keyframes[keyframeCount++] = state.clone();
+    }
+}
@@ -0,0 +1,49 @@
+// The available solving engines, selectable from the GUI and from code
+enum SolverType {
+    BACKTRACKING("Backtracking"),   // Iterative backtracker, most constrained cell first, singles propagated
+    DANCING_LINKS("Dancing Links"), // Algorithm X over the 4 * N * N exact-cover constraints
+    PARALLEL("Parallel"),           // Backtracking split into fork/join tasks
+    PORTFOLIO("Portfolio");         // Several strategies raced, first answer wins
+
+    private final String label;     // Name shown in the GUI
+
+    SolverType(String label) {
+        this.label = label;
+    }
+
+    // Create an engine of this type working on the given board
+    SudokuEngine create(SudokuBoard board) {
+        switch (this) {
+            case DANCING_LINKS:
+                return new DlxSolver(board);
+            case PARALLEL:
+                return new ParallelSolver(board);
+            case PORTFOLIO:
+                return new PortfolioSolver(board);
+            default:
+                return new SudokuSolver(board);
+        }
+    }
+
+    // Solve a grid of any board size in place (0 = empty); returns false if it has no solution
+    boolean solve(int[][] grid) {
+        SudokuBoard board = new SudokuBoard(grid.length);
+        if (!board.load(grid)) return false; // Givens conflict
+        if (!create(board).solve()) return false;
+        board.copyTo(grid);
+        return true;
+    }
+
+    // Look up a type by its GUI label
+    static SolverType fromLabel(String label) {
+        for (SolverType type : values()) {
+            if (type.label.equals(label)) return type;
+        }
+        throw new IllegalArgumentException("Unknown solver: " + label);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
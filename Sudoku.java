@@ -1,22 +1,43 @@
 import java.awt.*;          // Importing AWT package for GUI components
 import java.awt.event.*;      // Importing AWT event package for handling events
-import java.util.ArrayList;   // For shuffling numbers
-import java.util.Collections; // For shuffling numbers
-import java.util.List;        // For shuffling numbers
-import java.util.Random;        // Importing Random for generating random numbers
+import java.io.IOException;   // Puzzle library access
+import java.nio.file.Paths;
+import java.util.Arrays;      // For command-line argument handling
+import java.util.SplittableRandom; // For picking library puzzles
 
 class Sudoku extends Frame implements ActionListener {
-    private static final int SIZE = 9;                  // Size of the Sudoku grid
-    private static final int SUBGRID_SIZE = 3;          // Size of each 3x3 sub-grid
-    private TextField[][] cells = new TextField[SIZE][SIZE]; // 2D array for text fields
-    private int[][] sudoku = new int[SIZE][SIZE];      // 2D array to store the Sudoku puzzle (initial state)
-    private int[][] solution = new int[SIZE][SIZE];    // 2D array to store the complete solution
+    private final int size;                             // Size of the Sudoku grid, chosen at startup
+    private final boolean printStats;                   // Print the counters on exit (--stats)
+    private final SudokuCanvas grid;                    // Component painting all cells
+    private final int[][] sudoku;                       // 2D array to store the Sudoku puzzle (initial state)
+    private final int[][] solution;                     // 2D array to store the complete solution
+    private final PuzzlePool pool;                      // Puzzles generated ahead in the background
+    private final PuzzleStore library;                  // Pre-built puzzles for Reset, null if none was given
+    private final SplittableRandom random = new SplittableRandom(); // Seeds the library picks of each PuzzleThread
+    private final SudokuBoard solveBoard;               // Constraint state used by the solver thread
     private Button checkButton, resetButton, endButton, solutionButton; // Buttons for user actions
+    private Button pauseButton, stepButton, backButton; // Buttons driving a running solve or its replay
+    private Scrollbar seekBar;                          // Replay position
     private TextField speedField;                       // Field to control visualization speed
     private Label speedLabel;                           // Label for the speed field
+    private TextField statsField;                       // Live statistics of the running search
+    private Choice solverChoice;                        // Engine used by the Solution button
+    private Choice difficultyChoice;                    // Difficulty of the puzzles made by Reset
+    private String puzzleTitle = "Sudoku Game";         // Window title for the current puzzle
 
     private volatile boolean solving = false;           // Flag to indicate if solver is running
+    private volatile int solveDelay = 100;              // Visualization delay captured when a solve starts
+    private volatile BoardSnapshot activeSnapshot = null; // Board the renderer is currently showing
+    private final int[] shownState;                     // Snapshot state last applied to each cell (EDT only)
+    private volatile boolean framePending = false;      // A frame is queued on the EDT and not yet run
+    private static final int MAX_SIZE = 25;             // Largest board offered (a 36x36 Easy puzzle takes 8 s to generate)
+    private static final int FRAME_MILLIS = 16;         // Refresh period of the solver display (about 60 Hz)
+    private static final int STATS_FRAMES = 15;         // Frames per statistics refresh (about 4 Hz)
+    private static final String STATS_FORMAT = "%,.0f nodes/s   depth %d   %,d guesses   %,d backtracks   %.2f s   %.1f%% explored";
+    private SearchStats sampledStats = null;            // Search the last rate sample belongs to (EDT only)
+    private long sampledNodes, sampledNanos;            // Node count and time at that sample (EDT only)
     private SolveThread solverThread = null;           // Thread for the visualization
+    private PuzzleThread puzzleThread = null;           // Puzzle being generated off the EDT, null if none (EDT only)
 
     // Colors for visualization
     private final Color ORIGINAL_BG_COLOR = Color.WHITE;
@@ -24,54 +45,24 @@ class Sudoku extends Frame implements ActionListener {
     private final Color SOLVING_BG_COLOR = Color.YELLOW;   // Color for cell being tried
     private final Color BACKTRACK_BG_COLOR = Color.ORANGE; // Color for cell during backtrack
     private final Color FINAL_SOLVE_COLOR = Color.GREEN;  // Color for correctly placed number during solve
-
-
-    public Sudoku() {
+    private final Color PROPAGATED_BG_COLOR = Color.CYAN; // Color for cell filled by deduction, not guessing
+
+
+    // Game on a size x size board (9 for the classic game); library must hold puzzles of that size
+    public Sudoku(PuzzleStore library, int size, boolean printStats) {
+        this.library = library;
+        this.size = size;
+        this.printStats = printStats;
+        solveBoard = new SudokuBoard(size);
+        grid = new SudokuCanvas(size, solveBoard.boxSize(), solveBoard.boxSize());
+        sudoku = new int[size][size];
+        solution = new int[size][size];
+        shownState = new int[size * size];
+        pool = new PuzzlePool(size);
         setTitle("Sudoku Game");        // Set the title of the window
-        setSize(500, 550);              // Increased size slightly for new controls
+        setSize(820, size > SudokuBoard.SIZE ? 900 : 600); // Wide enough for the control row, taller for big grids
         setLayout(new BorderLayout());  // Set layout manager
 
-        // Create a panel for the Sudoku grid with 3x3 grid gaps
-        Panel mainGridPanel = new Panel(new GridLayout(SUBGRID_SIZE, SUBGRID_SIZE, 5, 5));
-        mainGridPanel.setBackground(Color.DARK_GRAY); // Set main grid background color
-
-        // Create 3x3 subgrids for the Sudoku puzzle
-        for (int subRow = 0; subRow < SUBGRID_SIZE; subRow++) {
-            for (int subCol = 0; subCol < SUBGRID_SIZE; subCol++) {
-                Panel subGridPanel = new Panel(new GridLayout(SUBGRID_SIZE, SUBGRID_SIZE)); // Each 3x3 sub-grid
-                // No background needed here if main grid has one
-
-                // Initialize cells in each 3x3 sub-grid
-                for (int row = subRow * SUBGRID_SIZE; row < (subRow + 1) * SUBGRID_SIZE; row++) {
-                    for (int col = subCol * SUBGRID_SIZE; col < (subCol + 1) * SUBGRID_SIZE; col++) {
-                        cells[row][col] = new TextField(); // Create a new text field
-                        cells[row][col].setFont(new Font("SansSerif", Font.BOLD, 20)); // Increased font size
-                        cells[row][col].setPreferredSize(new Dimension(40, 40)); // Increased cell size
-                        cells[row][col].setBackground(ORIGINAL_BG_COLOR); // Set background color for the cell
-                        cells[row][col].setEditable(true); // Allow editing initially
-                        cells[row][col].addKeyListener(new KeyAdapter() { // Limit input to 1-9
-                            public void keyTyped(KeyEvent e) {
-                                char c = e.getKeyChar();
-                                TextField source = (TextField) e.getSource();
-                                String currentText = source.getText();
-                                // Allow digits 1-9, backspace, delete
-                                if (!((c >= '1' && c <= '9') || c == KeyEvent.VK_BACK_SPACE || c == KeyEvent.VK_DELETE)) {
-                                    e.consume(); // Ignore invalid characters
-                                } else if (Character.isDigit(c) && currentText.length() >= 1 && source.getSelectedText() == null) {
-                                    // If already has a digit and no text is selected, replace the digit
-                                    source.setText(String.valueOf(c));
-                                     e.consume(); // Consume the event after setting text manually
-                                }
-                                 // Allow backspace/delete regardless of length
-                            }
-                        });
-                        subGridPanel.add(cells[row][col]); // Add the cell to the sub-grid
-                    }
-                }
-                mainGridPanel.add(subGridPanel); // Add sub-grid to the main grid panel
-            }
-        }
-
         // Create action buttons and controls in a separate panel
         Panel controlPanel = new Panel(new FlowLayout(FlowLayout.CENTER, 10, 10)); // Panel for buttons and speed
         checkButton = new Button("Check");
@@ -83,19 +74,59 @@ class Sudoku extends Frame implements ActionListener {
         endButton = new Button("End");
         endButton.addActionListener(this);
 
+        pauseButton = new Button("Pause"); // Toggles between Pause and Resume
+        pauseButton.addActionListener(this);
+        stepButton = new Button("Step");   // Single step while paused
+        stepButton.addActionListener(this);
+        backButton = new Button("Back");   // Step the replay backwards
+        backButton.addActionListener(this);
+        seekBar = new Scrollbar(Scrollbar.HORIZONTAL, 0, 1, 0, 1);
+        seekBar.addAdjustmentListener(e -> seekReplay(e.getValue())); // Scrub through the replay
+
+        solverChoice = new Choice();
+        for (SolverType type : SolverType.values()) {
+            solverChoice.add(type.toString());
+        }
+        solverChoice.select(SolverType.BACKTRACKING.toString()); // Portfolio only once its win counts justify it
+
+        difficultyChoice = new Choice(); // Only the difficulties the generator reaches at this size
+        Difficulty hardest = SudokuGenerator.hardestFor(size);
+        for (Difficulty difficulty : Difficulty.values()) {
+            if (difficulty.compareTo(hardest) <= 0) difficultyChoice.add(difficulty.toString());
+        }
+        difficultyChoice.select((hardest == Difficulty.EASY ? Difficulty.EASY : Difficulty.MEDIUM).toString());
+
         speedLabel = new Label("Speed (ms):");
         speedField = new TextField("100", 4); // Default 100ms delay, width 4
+        statsField = new TextField(String.format(STATS_FORMAT, 0.0, 0, 0L, 0L, 0.0, 0.0), 64);
+        statsField.setEditable(false); // Output only
+        statsField.setFocusable(false);
 
         controlPanel.add(checkButton);
+        controlPanel.add(difficultyChoice); // Add difficulty selection for Reset
         controlPanel.add(resetButton);
         controlPanel.add(solutionButton); // Add solution button
-        controlPanel.add(speedLabel);     // Add speed label
-        controlPanel.add(speedField);     // Add speed field
+        controlPanel.add(solverChoice);   // Add engine selection
+        controlPanel.add(pauseButton);    // Add pause/resume button
+        controlPanel.add(backButton);     // Add step-back button
+        controlPanel.add(stepButton);     // Add single-step button
         controlPanel.add(endButton);
 
+        // Speed and the live search statistics on a row of their own
+        Panel statsPanel = new Panel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        statsPanel.add(speedLabel);       // Add speed label
+        statsPanel.add(speedField);       // Add speed field
+        statsPanel.add(statsField);       // Add statistics strip
+
+        // Seek bar on its own row under the buttons
+        Panel bottomPanel = new Panel(new BorderLayout());
+        bottomPanel.add(controlPanel, BorderLayout.NORTH);
+        bottomPanel.add(statsPanel, BorderLayout.CENTER);
+        bottomPanel.add(seekBar, BorderLayout.SOUTH);
+
         // Add panels to the main frame
-        add(mainGridPanel, BorderLayout.CENTER); // Add Sudoku grid to center
-        add(controlPanel, BorderLayout.SOUTH);  // Add control panel to south
+        add(grid, BorderLayout.CENTER); // Add Sudoku grid to center
+        add(bottomPanel, BorderLayout.SOUTH);  // Add control panel to south
 
         // Generate a new Sudoku puzzle
         generateSudoku(); // Call method to generate Sudoku
@@ -104,144 +135,146 @@ class Sudoku extends Frame implements ActionListener {
         addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent we) {
                 stopSolverThread(); // Ensure thread stops if window is closed
+                reportStats();
                 System.exit(0); // Exit the application
             }
         });
 
+        new RenderThread().start(); // Refreshes the grid from the solver's snapshot
+
         setVisible(true); // Make the frame visible
     }
 
-    // Generate a valid Sudoku puzzle using backtracking
+    // Show a new Sudoku puzzle with a unique solution: from the pool when one is ready,
+    // otherwise looked up in the library or generated by a PuzzleThread so the window stays
+    // responsive (a library lookup can scan the whole store)
     private void generateSudoku() {
         stopSolverThread(); // Stop any previous solver
         solving = false;
-        clearSudoku();      // Clear the internal grid
-        fillGrid();         // Use backtracking to generate a complete valid Sudoku grid
-        copySolution();     // Save the fully filled solution for validation later
-
-        // Remove cells based on a difficulty (e.g., fixed number for now)
-        makePuzzle(40); // Remove 40 cells (adjust for difficulty)
-
-        // Update the GUI cells with the puzzle
-        updateCellsInGUI();
-        setButtonStates(true); // Enable buttons
-        setAllCellsEditableBasedOnPuzzle(); // Set editability based on initial puzzle
-    }
-
-    // Clear the internal Sudoku grid
-    private void clearSudoku() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                sudoku[i][j] = 0; // Reset each cell to 0
-            }
+        SudokuEvents.Generate event = new SudokuEvents.Generate();
+        event.begin();
+        // Unique puzzle of the chosen difficulty from the pool, unless the library comes first
+        Difficulty target = Difficulty.fromLabel(difficultyChoice.getSelectedItem());
+        Difficulty difficulty = null;
+        String source = null;
+        if (library == null) {
+            long misses = pool.getMissCount();
+            difficulty = pool.poll(target, sudoku, solution);
+            source = pool.getMissCount() == misses ? "pool" : "variant";
         }
-    }
-
-    // Backtracking algorithm to fill the grid (for generation)
-    private boolean fillGrid() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (sudoku[row][col] == 0) { // Check for empty cells
-                    List<Integer> numbers = generateShuffledList(); // Get shuffled numbers 1-9
-
-                    for (int num : numbers) {
-                        if (isSafeForGeneration(row, col, num)) { // Check if it's safe to place the number
-                            sudoku[row][col] = num; // Place the number
-
-                            if (fillGrid()) { // Recur to fill the next cell
-                                return true; // Successfully filled
-                            }
-                            sudoku[row][col] = 0; // Backtrack if not successful
-                        }
-                    }
-                    return false; // Trigger backtracking
-                }
+        if (difficulty == null) { // Library, or nothing ready yet as on startup: in the background
+            puzzleThread = new PuzzleThread(target, event, random.split());
+            puzzleThread.start();
+            for (int[] row : sudoku) {
+                Arrays.fill(row, 0);
             }
+            setTitle("Sudoku Game - " + (library == null ? "generating " : "looking up ") + target + " puzzle...");
+            updateCellsInGUI();
+            setButtonStates(true); // Check and Solution stay off until the puzzle is shown
+            setAllCellsEditable(false);
+            return;
         }
-        return true; // Completed filling the grid
-    }
-
-    // Generate a shuffled List of numbers 1-9
-    private List<Integer> generateShuffledList() {
-        List<Integer> list = new ArrayList<>();
-        for (int i = 1; i <= SIZE; i++) {
-            list.add(i);
-        }
-        Collections.shuffle(list);
-        return list;
+        puzzleThread = null; // A puzzle still being generated is no longer wanted
+        showPuzzle(difficulty, source, event);
     }
 
-    // Check if it's safe to place a number (used during initial generation)
-    private boolean isSafeForGeneration(int row, int col, int num) {
-        return !isInRowForGeneration(row, num) &&
-               !isInColForGeneration(col, num) &&
-               !isInBoxForGeneration(row - row % SUBGRID_SIZE, col - col % SUBGRID_SIZE, num);
-    }
+    // Display a new puzzle already copied into sudoku and solution (EDT only)
+    private void showPuzzle(Difficulty difficulty, String source, SudokuEvents.Generate event) {
+        puzzleTitle = "Sudoku Game - " + difficulty;
+        setTitle(puzzleTitle); // Show the rating of the new puzzle
 
-    // Check row during generation
-    private boolean isInRowForGeneration(int row, int num) {
-        for (int col = 0; col < SIZE; col++) {
-            if (sudoku[row][col] == num) return true;
+        // Update the GUI cells with the puzzle
+        updateCellsInGUI();
+        setButtonStates(true); // Enable buttons
+        setAllCellsEditableBasedOnPuzzle(); // Set editability based on initial puzzle
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.difficulty = difficulty.toString();
+            event.clues = countClues();
+            event.commit();
         }
-        return false;
     }
 
-    // Check column during generation
-    private boolean isInColForGeneration(int col, int num) {
-        for (int row = 0; row < SIZE; row++) {
-            if (sudoku[row][col] == num) return true;
+    // Takes a puzzle from the library, else from the pool, else generates one, then shows
+    // it on the EDT unless another Reset has replaced it meanwhile
+    class PuzzleThread extends Thread {
+        private final Difficulty target;
+        private final SudokuEvents.Generate event; // Spans the wait, committed when the puzzle is shown
+        private final SplittableRandom picks;      // Own stream: superseded threads may still be picking
+        private final int[][] puzzle = new int[size][size];
+        private final int[][] answer = new int[size][size];
+
+        PuzzleThread(Difficulty target, SudokuEvents.Generate event, SplittableRandom picks) {
+            super("Puzzle generator");
+            setDaemon(true); // Never keeps the application alive
+            this.target = target;
+            this.event = event;
+            this.picks = picks;
         }
-        return false;
-    }
 
-    // Check 3x3 box during generation
-    private boolean isInBoxForGeneration(int startRow, int startCol, int num) {
-        for (int row = 0; row < SUBGRID_SIZE; row++) {
-            for (int col = 0; col < SUBGRID_SIZE; col++) {
-                if (sudoku[startRow + row][startCol + col] == num) return true;
+        @Override
+        public void run() {
+            Difficulty difficulty = library == null ? null : takeFromLibrary(target, picks, puzzle, answer);
+            String source = "library";
+            if (difficulty == null && library != null) {
+                long misses = pool.getMissCount();
+                difficulty = pool.poll(target, puzzle, answer);
+                source = pool.getMissCount() == misses ? "pool" : "variant";
+            }
+            if (difficulty == null) {
+                difficulty = pool.generate(target, puzzle, answer);
+                source = "generation";
             }
+            Difficulty shown = difficulty;
+            String from = source;
+            EventQueue.invokeLater(() -> {
+                if (puzzleThread != this) return; // Superseded by another Reset
+                puzzleThread = null;
+                for (int row = 0; row < size; row++) {
+                    System.arraycopy(puzzle[row], 0, sudoku[row], 0, size);
+                    System.arraycopy(answer[row], 0, solution[row], 0, size);
+                }
+                showPuzzle(shown, from, event);
+            });
         }
-        return false;
     }
 
-    // Save the complete solution
-    private void copySolution() {
-        for (int i = 0; i < SIZE; i++) {
-            System.arraycopy(sudoku[i], 0, solution[i], 0, SIZE);
+    private int countClues() {
+        int clues = 0;
+        for (int[] row : sudoku) {
+            for (int num : row) {
+                if (num != 0) clues++;
+            }
         }
+        return clues;
     }
 
-    // Remove cells to create a Sudoku puzzle
-    private void makePuzzle(int cellsToRemove) {
-        Random rand = new Random();
-        int removed = 0;
-        // Ensure we have a unique solution - more complex, omitted for simplicity here
-        // Basic removal:
-        while (removed < cellsToRemove && removed < SIZE * SIZE) { // Added safety limit
-            int row = rand.nextInt(SIZE);
-            int col = rand.nextInt(SIZE);
-            if (sudoku[row][col] != 0) {
-                sudoku[row][col] = 0;
-                removed++;
-            }
+    // Copy a random library puzzle of a difficulty into puzzle and answer; null if none was
+    // found. Off the EDT: the first lookup of a rare rating scans the store.
+    private Difficulty takeFromLibrary(Difficulty difficulty, SplittableRandom picks, int[][] puzzle, int[][] answer) {
+        try {
+            library.refresh(); // Include puzzles appended since startup
+            long id = library.pick(difficulty, picks);
+            if (id < 0) return null;
+            library.getPuzzle(id, puzzle);
+            library.getSolution(id, answer);
+            return library.getRating(id);
+        } catch (IOException e) {
+            System.err.println("Puzzle library unavailable: " + e.getMessage());
+            return null;
         }
     }
 
-    // Update GUI text fields with Sudoku values from the internal 'sudoku' array
+    // Update the grid with Sudoku values from the internal 'sudoku' array
     private void updateCellsInGUI() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                cells[row][col].setForeground(Color.BLACK); // Reset text color
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 if (sudoku[row][col] != 0) {
-                    cells[row][col].setText(String.valueOf(sudoku[row][col]));
-                    // cells[row][col].setEditable(false); // Defer setting editability
-                    cells[row][col].setBackground(FILLED_BG_COLOR); // Mark initial numbers
-                    cells[row][col].setFont(new Font("SansSerif", Font.BOLD, 20));
+                    grid.setCell(row, col, sudoku[row][col], FILLED_BG_COLOR, Color.BLACK); // Mark initial numbers
+                    grid.setGiven(row, col, true); // Bold font for the puzzle's numbers
                 } else {
-                    cells[row][col].setText("");
-                    // cells[row][col].setEditable(true); // Defer setting editability
-                    cells[row][col].setBackground(ORIGINAL_BG_COLOR); // Editable cells
-                     cells[row][col].setFont(new Font("SansSerif", Font.PLAIN, 20)); // Maybe different font for user input
+                    grid.setCell(row, col, 0, ORIGINAL_BG_COLOR, Color.BLACK); // Editable cells
+                    grid.setGiven(row, col, false); // Plain font for user input
                 }
             }
         }
@@ -249,12 +282,12 @@ class Sudoku extends Frame implements ActionListener {
         findFirstEditableCellAndFocus();
     }
 
-     private void findFirstEditableCellAndFocus() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
+    private void findFirstEditableCellAndFocus() {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 // Check the internal model 'sudoku' to know if it *should* be editable
                 if (sudoku[row][col] == 0) {
-                    cells[row][col].requestFocus();
+                    grid.selectCell(row, col);
                     return;
                 }
             }
@@ -263,46 +296,194 @@ class Sudoku extends Frame implements ActionListener {
 
     // --- Solver Visualization Logic ---
 
-    // Thread for running the solver visualization
+    // Thread for running the solver visualization: the engine first solves at full speed while
+    // a SolverTrace records every event, then the trace is replayed at the chosen speed.
+    // Replay can be paused, stepped either way and seeked, and stays open at the end.
     class SolveThread extends Thread {
-        @Override
-        public void run() {
-            solving = true;
-            setButtonStates(false); // Disable buttons during solve
+        private final SudokuEngine solver; // Headless engine driven by this thread
+        private final BoardSnapshot snapshot; // Where the replay is published
+        private final SolverTrace trace = new SolverTrace(size); // Log of the solve
+        private final SearchStats stats = new SearchStats(size * size); // Live counters of the solve
+        private final SearchControl replayControl = new SearchControl(); // Pause/step/cancel for the replay
+        private volatile SearchControl control; // Control of the current phase (solve, then replay)
+        private volatile TracePlayer player = null; // Set once recording is done
+
+        SolveThread(SolverType type, BoardSnapshot snapshot) {
+            this.snapshot = snapshot;
+            solver = type.create(solveBoard);
+            solver.setListener(trace);
+            solver.setStats(stats);
+            control = solver.getControl();
+        }
+
+        void cancel() {
+            solver.cancel();
+            replayControl.cancel();
+        }
+
+        SearchControl getControl() {
+            return control;
+        }
 
-            // --- FIX: DO NOT set all cells non-editable here ---
-            // setAllCellsEditable(false); // <--- REMOVED THIS LINE
+        SearchStats getStats() {
+            return stats;
+        }
 
-            final boolean solved = solveSudokuVisual(); // Run the solver
+        // Replay position control from the EDT; null while still recording
+        TracePlayer getPlayer() {
+            return player;
+        }
 
-            // Use EventQueue to update GUI after solving is done
+        @Override
+        public void run() {
+            final boolean solved = solver.solve(); // Run the solver at full speed, recording
+            if (solver.getControl().isCancelled()) return; // Stopped: stopSolverThread cleans up
+
+            String outcome = (solved ? "solved" : "no solution")
+                    + (solver instanceof PortfolioSolver ? " by " + ((PortfolioSolver) solver).getWinner() : "")
+                    + (trace.isTruncated() ? ", replay truncated" : "");
+            if (solver.getControl().isPaused()) replayControl.pause(); // Stay paused into the replay
+            TracePlayer p = new TracePlayer(trace, snapshot);
+            control = replayControl;
+            player = p;
             EventQueue.invokeLater(() -> {
-                if (solved) {
-                    System.out.println("Solved!");
-                    // Optionally indicate success visually (e.g., final color already applied)
-                    setAllCellsEditable(false); // NOW make cells non-editable AFTER successful solve
-                } else {
-                    System.out.println("Could not solve or was interrupted.");
-                    // Optionally indicate failure visually, or reset colors?
-                    // Reset colors if stopped mid-way?
-                    if(!isBoardFullVisual()){ // if interrupted, reset background of non-filled cells
-                         resetTryingCellBackgrounds();
+                if (snapshot == activeSnapshot) enableReplayControls(p.length());
+            });
+            replay(p, solved, outcome);
+        }
+
+        // Play the trace at the visualization speed until cancelled
+        private void replay(TracePlayer p, boolean solved, String outcome) {
+            boolean finished = false; // Outcome shown already
+            while (replayControl.proceed()) {
+                int event;
+                synchronized (p) {
+                    event = p.atEnd() ? -1 : p.stepForward();
+                }
+                if (event < 0) { // End of the trace: show the result once and wait for seeks or steps
+                    replayControl.pause();
+                    if (!finished) {
+                        finished = true;
+                        EventQueue.invokeLater(() -> finishSolve(snapshot, solved, outcome));
+                    } else {
+                        EventQueue.invokeLater(() -> { // Step or Resume at the end: just stay paused
+                            if (snapshot == activeSnapshot) pauseButton.setLabel("Resume");
+                        });
                     }
+                    continue;
                 }
+                int type = SolverTrace.typeOf(event);
+                if (type == SolverTrace.TRY) {
+                    pauseSolver(solveDelay);
+                } else if (type == SolverTrace.PROPAGATE) {
+                    pauseSolver(solveDelay / 2); // Deductions go faster than guesses
+                } else if (solveDelay > 0) {
+                    int cell = SolverTrace.cellOf(event);
+                    snapshot.set(cell / size, cell % size, SolverTrace.numOf(event), BoardSnapshot.BACKTRACK); // Indicate backtracking
+                    pauseSolver(solveDelay / 2); // Shorter pause for backtracking visibility
+                    synchronized (p) {
+                        snapshot.setCell(cell, p.stateOf(cell)); // Back to the replayed state
+                    }
+                }
+            }
+        }
+    }
+
+    // Show the outcome once the replay reaches the end of the trace (EDT only)
+    private void finishSolve(BoardSnapshot snapshot, boolean solved, String outcome) {
+        if (snapshot != activeSnapshot) return; // Stopped and superseded by a reset or another solve
+        renderFrame(snapshot); // Show the last state before finishing up
+        setTitle(puzzleTitle + " - " + outcome); // Result, winning strategy and whether the trace was cut
+        if (solved) {
+            System.out.println("Solved!");
+            markSolvedCells(); // Show the solution in the final color
+            setAllCellsEditable(false); // NOW make cells non-editable AFTER successful solve
+        } else {
+            System.out.println("Could not solve.");
+            resetTryingCellBackgrounds(); // Reset background of cells left mid-search
+        }
 
-                solving = false;
-                setButtonStates(true); // Re-enable buttons
-                 // Ensure reset and end are always enabled after solve attempt
-                resetButton.setEnabled(true);
-                endButton.setEnabled(true);
-                // Keep check/solution disabled if solved successfully
-                if(solved) {
-                    checkButton.setEnabled(false);
-                    solutionButton.setEnabled(false);
+        solving = false;
+        setButtonStates(true); // Re-enable buttons
+        // Keep check/solution disabled if solved successfully
+        if (solved) {
+            checkButton.setEnabled(false);
+            solutionButton.setEnabled(false);
+        }
+        // The replay stays open for scrubbing until the next Reset, Check or Solution
+        setReplayControlsEnabled(true);
+        pauseButton.setLabel("Resume");
+    }
+
+    // Samples the active snapshot at a fixed rate and queues at most one frame at a time,
+    // so display cost does not depend on how fast the solver runs
+    class RenderThread extends Thread {
+        RenderThread() {
+            super("Sudoku renderer");
+            setDaemon(true); // Never keeps the application alive
+        }
+
+        @Override
+        public void run() {
+            for (int frame = 1; ; frame++) {
+                try {
+                    Thread.sleep(FRAME_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (frame % STATS_FRAMES == 0) EventQueue.invokeLater(Sudoku.this::updateStats); // Sampled, never per event
+                BoardSnapshot snapshot = activeSnapshot;
+                if (snapshot != null && !framePending && snapshot.takeDirty()) {
+                    framePending = true;
+                    EventQueue.invokeLater(() -> {
+                        framePending = false;
+                        renderFrame(snapshot);
+                    });
                 }
+            }
+        }
+    }
 
-            });
-            solverThread = null; // Thread finished
+    // Apply a snapshot to the grid, touching only cells whose state changed (EDT only)
+    private void renderFrame(BoardSnapshot snapshot) {
+        if (snapshot != activeSnapshot) return; // Solve was stopped or replaced meanwhile
+        SudokuEvents.Render event = new SudokuEvents.Render();
+        event.begin();
+        int changed = 0;
+        SolveThread thread = solverThread;
+        TracePlayer player = thread == null ? null : thread.getPlayer();
+        if (player != null && !seekBar.getValueIsAdjusting()) {
+            synchronized (player) {
+                seekBar.setValue(player.position()); // Follow the replay
+            }
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            int state = snapshot.get(cell);
+            if (state == shownState[cell]) continue;
+            shownState[cell] = state;
+            changed++;
+            int row = cell / size;
+            int col = cell % size;
+            int num = BoardSnapshot.numOf(state);
+            switch (BoardSnapshot.kindOf(state)) {
+                case BoardSnapshot.TRY:
+                    grid.setCell(row, col, num, SOLVING_BG_COLOR, Color.BLUE); // Highlight trying
+                    break;
+                case BoardSnapshot.PROPAGATED:
+                    grid.setCell(row, col, num, PROPAGATED_BG_COLOR, Color.BLACK); // Deduced, not guessed
+                    break;
+                case BoardSnapshot.BACKTRACK:
+                    grid.setCell(row, col, 0, BACKTRACK_BG_COLOR, Color.RED); // Indicate backtracking
+                    break;
+                default:
+                    grid.setCell(row, col, 0, ORIGINAL_BG_COLOR, Color.BLACK); // Reset color
+                    break;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.changed = changed;
+            event.position = seekBar.getValue();
+            event.commit();
         }
     }
 
@@ -313,177 +494,139 @@ class Sudoku extends Frame implements ActionListener {
         // Reset colors and ensure editability is correct *before* starting
         resetCellBackgrounds();
         setAllCellsEditableBasedOnPuzzle(); // Make sure only initially empty cells are editable
-
-        solverThread = new SolveThread();
+        clearUserEntries(); // The solver works from the original puzzle, so drop user input
+        solveBoard.load(sudoku); // Build the solver's constraint state from the puzzle
+        solveDelay = getDelay(); // Read the speed on the EDT, the solver thread never touches widgets
+
+        solving = true;
+        setButtonStates(false); // Disable buttons during solve
+        BoardSnapshot snapshot = new BoardSnapshot(size); // All cells start EMPTY, matching the cleared grid
+        Arrays.fill(shownState, 0);
+        activeSnapshot = snapshot;
+        solverThread = new SolveThread(SolverType.fromLabel(solverChoice.getSelectedItem()), snapshot);
         solverThread.start();
     }
 
-    // Stops the solver thread if running
-    private void stopSolverThread() {
-        if (solverThread != null && solverThread.isAlive()) {
-            solving = false; // Signal the thread to stop early
-            solverThread.interrupt(); // Interrupt the sleep
-            try {
-                solverThread.join(500); // Wait briefly for it to finish
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore interrupt status
-            }
+    // Show the counters of the current solve in the statistics strip (EDT only). The node
+    // rate is taken between two samples while the search runs, and over the whole search
+    // once it is done.
+    private void updateStats() {
+        SolveThread thread = solverThread;
+        SearchStats stats = thread == null ? null : thread.getStats();
+        if (stats == null) return; // Keep showing the last solve
+        long nodes = stats.getNodeCount();
+        if (!stats.isRunning() && stats == sampledStats && nodes == sampledNodes) return; // Final numbers shown already
+        long elapsed = stats.getElapsedNanos();
+        double rate;
+        if (!stats.isRunning()) {
+            rate = elapsed == 0 ? 0 : nodes * 1e9 / elapsed;
+        } else if (stats == sampledStats && elapsed > sampledNanos) {
+            rate = (nodes - sampledNodes) * 1e9 / (elapsed - sampledNanos);
+        } else {
+            rate = elapsed == 0 ? 0 : nodes * 1e9 / elapsed; // First sample of this search
         }
-        solverThread = null;
-        solving = false;
-        // Re-enable buttons if solver is stopped externally
-        // Use invokeLater as this might be called from different threads
-        EventQueue.invokeLater(() -> setButtonStates(true));
+        sampledStats = stats;
+        sampledNodes = nodes;
+        sampledNanos = elapsed;
+        statsField.setText(String.format(STATS_FORMAT, rate, stats.getDepth(), stats.getGuessCount(),
+                stats.getBacktrackCount(), elapsed / 1e9, 100 * stats.getExplored()));
     }
 
-
-    // Recursive backtracking solver with visualization
-    private boolean solveSudokuVisual() {
-         if (!solving) return false; // Check if stop was requested
-
-        int[] find = findEmptyCellVisual();
-        if (find == null) {
-            return true; // No empty cells, solved!
+    // Pause the running solve or replay, or resume it if it is paused
+    private void togglePause() {
+        SolveThread thread = solverThread;
+        if (thread == null) return;
+        SearchControl control = thread.getControl();
+        if (control.isPaused()) {
+            control.resume();
+            pauseButton.setLabel("Pause");
+        } else {
+            control.pause();
+            pauseButton.setLabel("Resume");
         }
-        int row = find[0];
-        int col = find[1];
+    }
 
-        // Ensure the found cell is indeed editable (safety check)
-        if(!cells[row][col].isEditable()) {
-             System.err.println("Error: findEmptyCellVisual returned non-editable cell?");
-             return solveSudokuVisual(); // Skip and try next empty cell
+    // Let the solve or replay take a single step, pausing it first if it is running freely
+    private void stepSolver() {
+        SolveThread thread = solverThread;
+        if (thread == null) return;
+        SearchControl control = thread.getControl();
+        if (!control.isPaused()) {
+            control.pause();
+            pauseButton.setLabel("Resume");
         }
+        control.step();
+    }
 
-        for (int num = 1; num <= SIZE; num++) {
-             if (!solving) return false; // Check if stop was requested
-
-            // Check if the number is safe in the current visual grid state
-            if (isSafeVisual(row, col, num)) {
-                final int finalNum = num;
-                final int finalRow = row;
-                final int finalCol = col;
-
-                EventQueue.invokeLater(() -> {
-                    cells[finalRow][finalCol].setText(String.valueOf(finalNum));
-                    cells[finalRow][finalCol].setBackground(SOLVING_BG_COLOR); // Highlight trying
-                    cells[finalRow][finalCol].setForeground(Color.BLUE); // Color for trying
-                });
-
-                pauseSolver(getDelay());
-
-                 if (!solving) { // Check again after pause, cleanup needed
-                     EventQueue.invokeLater(() -> {
-                         // Only clear if it's still the number we placed (might have been changed by fast interrupt)
-                         if (cells[finalRow][finalCol].getText().equals(String.valueOf(finalNum)) && cells[finalRow][finalCol].isEditable()) {
-                            cells[finalRow][finalCol].setText("");
-                            cells[finalRow][finalCol].setBackground(ORIGINAL_BG_COLOR);
-                            cells[finalRow][finalCol].setForeground(Color.BLACK);
-                         }
-                     });
-                    return false;
-                 }
-
-                if (solveSudokuVisual()) {
-                     // Success! Mark this cell as part of the final solution
-                     EventQueue.invokeLater(() -> {
-                         cells[finalRow][finalCol].setBackground(FINAL_SOLVE_COLOR); // Mark as correct
-                         cells[finalRow][finalCol].setForeground(Color.BLACK); // Final text color
-                     });
-                    return true; // Found solution path
-                }
-
-                // Backtrack: If recursion failed, undo the choice visually
-                 if (!solving) return false; // Check if stop was requested
-
-                 // Make sure we are backtracking from the number we placed
-                 final String currentTextInCell = cells[row][col].getText(); // Read value *before* invokeLater
-
-                 EventQueue.invokeLater(() -> {
-                     // Only clear if it's still the number we placed during this step
-                     if (cells[finalRow][finalCol].isEditable() && currentTextInCell.equals(String.valueOf(finalNum))) {
-                         cells[finalRow][finalCol].setText(""); // Clear the cell
-                         cells[finalRow][finalCol].setBackground(BACKTRACK_BG_COLOR); // Indicate backtracking
-                         cells[finalRow][finalCol].setForeground(Color.RED); // Backtrack text color (optional)
-                     }
-                 });
-
-                pauseSolver(getDelay() / 2); // Shorter pause for backtracking visibility
+    // Take the replay back by one event (pauses it first)
+    private void stepBack() {
+        SolveThread thread = solverThread;
+        TracePlayer player = thread == null ? null : thread.getPlayer();
+        if (player == null) return;
+        if (!thread.getControl().isPaused()) {
+            thread.getControl().pause();
+            pauseButton.setLabel("Resume");
+        }
+        synchronized (player) {
+            if (player.position() > 0) player.stepBack();
+        }
+    }
 
-                 EventQueue.invokeLater(() -> {
-                     // Only reset color if it's still marked as backtracking
-                     if (cells[finalRow][finalCol].isEditable() && cells[finalRow][finalCol].getBackground() == BACKTRACK_BG_COLOR) {
-                         cells[finalRow][finalCol].setBackground(ORIGINAL_BG_COLOR); // Reset color
-                         cells[finalRow][finalCol].setForeground(Color.BLACK);
-                     }
-                 });
-            } // end if isSafeVisual
-        } // end for num
-
-        return false; // No number worked for this cell, trigger backtrack from caller
-    }
-
-    // Find the next empty cell in the GUI grid intended for user input/solving
-    private int[] findEmptyCellVisual() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                // Find cell that was originally empty (check internal 'sudoku' model)
-                // AND is currently empty in the GUI
-                if (sudoku[row][col] == 0 && cells[row][col].getText().trim().isEmpty()) {
-                     // Double check editability just in case state is inconsistent
-                     if (cells[row][col].isEditable()){
-                        return new int[]{row, col};
-                     } else {
-                         // This case indicates a potential state management issue, but we'll log it and continue searching
-                         System.err.println("Warning: Cell " + row + "," + col + " should be editable but isn't during solve search.");
-                     }
-                }
-            }
+    // Move the replay to the position chosen on the seek bar
+    private void seekReplay(int position) {
+        SolveThread thread = solverThread;
+        TracePlayer player = thread == null ? null : thread.getPlayer();
+        if (player == null) return;
+        synchronized (player) {
+            player.seek(position);
         }
-        return null; // No empty cells found
     }
 
+    // Replay controls become usable once the trace is recorded (EDT only)
+    private void enableReplayControls(int length) {
+        seekBar.setValues(0, 1, 0, length + 1); // Positions 0..length
+        setReplayControlsEnabled(true);
+    }
 
-    // Check safety based on the current state of the GUI TextFields
-    private boolean isSafeVisual(int row, int col, int num) {
-        String numStr = String.valueOf(num);
-        // Check row
-        for (int c = 0; c < SIZE; c++) {
-            if (c != col && cells[row][c].getText().equals(numStr)) { // Don't check against self
-                return false;
-            }
-        }
-        // Check column
-        for (int r = 0; r < SIZE; r++) {
-            if (r != row && cells[r][col].getText().equals(numStr)) { // Don't check against self
-                return false;
+    private void setReplayControlsEnabled(boolean enabled) {
+        pauseButton.setEnabled(enabled);
+        stepButton.setEnabled(enabled);
+        backButton.setEnabled(enabled);
+        seekBar.setEnabled(enabled);
+    }
+
+    // Stops the solver thread if running
+    private void stopSolverThread() {
+        if (solverThread != null && solverThread.isAlive()) {
+            solverThread.cancel(); // Signal the engine to stop early
+            solverThread.interrupt(); // Interrupt the sleep
+            try {
+                solverThread.join(500); // Wait briefly for it to finish
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Restore interrupt status
             }
         }
-        // Check 3x3 box
-        int startRow = row - row % SUBGRID_SIZE;
-        int startCol = col - col % SUBGRID_SIZE;
-        for (int r = 0; r < SUBGRID_SIZE; r++) {
-            for (int c = 0; c < SUBGRID_SIZE; c++) {
-                int checkRow = startRow + r;
-                int checkCol = startCol + c;
-                if (checkRow != row || checkCol != col) { // Don't check against self
-                    if (cells[checkRow][checkCol].getText().equals(numStr)) {
-                        return false;
-                    }
-                }
-            }
+        solverThread = null;
+        solving = false;
+        if (activeSnapshot != null) {
+            activeSnapshot = null; // Drop any frame still queued for the stopped solve
+            resetTryingCellBackgrounds(); // Don't leave cells highlighted mid-search
         }
-        return true;
+        // Re-enable buttons if solver is stopped externally
+        // Use invokeLater as this might be called from different threads
+        EventQueue.invokeLater(() -> setButtonStates(true));
     }
 
-    // Pause the solver thread
-    private void pauseSolver(int milliseconds) {
-        if (milliseconds <= 0) return; // Don't sleep if delay is zero or less
+    // Pause the solver thread; returns false if it was interrupted
+    private boolean pauseSolver(int milliseconds) {
+        if (milliseconds <= 0) return true; // Don't sleep if delay is zero or less
         try {
             Thread.sleep(milliseconds);
+            return true;
         } catch (InterruptedException e) {
             // Thread interrupted, likely by stopSolverThread() or window close
-            solving = false; // Ensure the flag is set to stop processing
             Thread.currentThread().interrupt(); // Preserve interrupt status
+            return false;
         }
     }
 
@@ -499,31 +642,23 @@ class Sudoku extends Frame implements ActionListener {
 
      // Reset background colors of all cells based on initial puzzle state
     private void resetCellBackgrounds() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                 if(sudoku[row][col] == 0){ // Originally empty cell
-                    cells[row][col].setBackground(ORIGINAL_BG_COLOR);
-                 } else { // Originally filled cell
-                     cells[row][col].setBackground(FILLED_BG_COLOR);
-                 }
-                 cells[row][col].setForeground(Color.BLACK); // Reset text color too
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                 // Originally empty cells are white, originally filled ones gray
+                 grid.setCellBackground(row, col, sudoku[row][col] == 0 ? ORIGINAL_BG_COLOR : FILLED_BG_COLOR);
+                 grid.setCellForeground(row, col, Color.BLACK); // Reset text color too
             }
         }
     }
 
      // Reset background for cells that might be left in a 'trying' or 'backtrack' state if interrupted
      private void resetTryingCellBackgrounds() {
-         for (int row = 0; row < SIZE; row++) {
-             for (int col = 0; col < SIZE; col++) {
-                 Color currentBg = cells[row][col].getBackground();
-                 if (currentBg == SOLVING_BG_COLOR || currentBg == BACKTRACK_BG_COLOR) {
-                     if (sudoku[row][col] == 0) { // Should be an originally empty cell
-                         cells[row][col].setBackground(ORIGINAL_BG_COLOR);
-                         cells[row][col].setForeground(Color.BLACK);
-                     } else { // Should be a pre-filled cell (this case is less likely)
-                         cells[row][col].setBackground(FILLED_BG_COLOR);
-                         cells[row][col].setForeground(Color.BLACK);
-                     }
+         for (int row = 0; row < size; row++) {
+             for (int col = 0; col < size; col++) {
+                 Color currentBg = grid.getCellBackground(row, col);
+                 if (currentBg == SOLVING_BG_COLOR || currentBg == BACKTRACK_BG_COLOR || currentBg == PROPAGATED_BG_COLOR) {
+                     grid.setCellBackground(row, col, sudoku[row][col] == 0 ? ORIGINAL_BG_COLOR : FILLED_BG_COLOR);
+                     grid.setCellForeground(row, col, Color.BLACK);
                  }
              }
          }
@@ -532,81 +667,82 @@ class Sudoku extends Frame implements ActionListener {
 
      // Enable/disable cells' editability based on the original puzzle stored in sudoku[][]
     private void setAllCellsEditableBasedOnPuzzle() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                cells[row][col].setEditable(sudoku[row][col] == 0);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                grid.setEditable(row, col, sudoku[row][col] == 0);
             }
         }
     }
 
      // Make ALL cells editable or not (used after solving/checking)
     private void setAllCellsEditable(boolean editable) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                 cells[row][col].setEditable(editable);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                 grid.setEditable(row, col, editable);
             }
         }
     }
 
-    // Check if the board is visually full
-    private boolean isBoardFullVisual() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (cells[row][col].getText().trim().isEmpty()) {
-                    return false;
+    // Show the solver's board in the GUI, with solved cells in the final color
+    // (deduced cells keep their own color so they stand apart from guesses)
+    private void markSolvedCells() {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (sudoku[row][col] == 0) {
+                    Color bg = grid.getCellBackground(row, col) == PROPAGATED_BG_COLOR ? PROPAGATED_BG_COLOR : FINAL_SOLVE_COLOR;
+                    grid.setCell(row, col, solveBoard.get(row, col), bg, Color.BLACK); // Final text color
+                    shownState[row * size + col] = -1; // Repaint from the replay if the user seeks back
+                }
+            }
+        }
+    }
+
+    // Clear whatever the user typed into the originally empty cells
+    private void clearUserEntries() {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (sudoku[row][col] == 0) {
+                    grid.setValue(row, col, 0);
                 }
             }
         }
-        return true;
     }
 
     // --- End Solver Visualization Logic ---
 
 
-    // Check user's solution against the stored complete solution
+    // Check user's solution against the stored complete solution (EDT only)
     private boolean checkUserSolution() {
+        SudokuEvents.Check event = new SudokuEvents.Check();
+        event.begin();
+        int filled = 0, wrong = 0;
         boolean allCorrect = true;
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                 String text = cells[row][col].getText().trim();
-                 if (text.isEmpty()) {
-                     // Mark originally empty cells that are still empty as incorrect (incomplete)
-                     if (sudoku[row][col] == 0) {
-                         // No need to color empty cells red, just note it's not correct
-                         allCorrect = false;
-                     }
-                     // If it wasn't originally empty but is now, that's also wrong (shouldn't happen)
-                     else {
-                         allCorrect = false;
-                     }
-                     continue; // Move to next cell if empty
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                 int userValue = grid.getValue(row, col);
+                 if (userValue == 0) {
+                     // Empty cells are not wrong, just incomplete: no need to color them red
+                     allCorrect = false;
+                     continue;
                  }
-
-                 try {
-                     int userValue = Integer.parseInt(text);
-                     if (userValue != solution[row][col]) {
-                         // If the value is wrong, mark it red (only if it was user-editable)
-                         if (sudoku[row][col] == 0) { // Check if it was an originally empty cell
-                            cells[row][col].setForeground(Color.RED);
-                         }
-                         // If a pre-filled cell was somehow changed to wrong value (shouldn't happen), mark error
-                         else {
-                             cells[row][col].setForeground(Color.RED); // Or handle differently
-                         }
-                         allCorrect = false; // Mark as incorrect
-                     } else {
-                         // If correct, ensure text color is black (or green if preferred for correct user input)
-                         cells[row][col].setForeground(Color.BLACK);
-                     }
-                 } catch (NumberFormatException e) {
-                      // If non-numeric input, mark red (only if user-editable)
-                      if (sudoku[row][col] == 0) {
-                         cells[row][col].setForeground(Color.RED);
-                      }
-                      allCorrect = false; // Non-numeric is incorrect
+                 filled++;
+                 if (userValue != solution[row][col]) {
+                     // If the value is wrong, mark it red
+                     grid.setCellForeground(row, col, Color.RED);
+                     allCorrect = false; // Mark as incorrect
+                     wrong++;
+                 } else {
+                     // If correct, ensure text color is black
+                     grid.setCellForeground(row, col, Color.BLACK);
                  }
             }
         }
+        if (event.shouldCommit()) {
+            event.filled = filled;
+            event.wrong = wrong;
+            event.correct = allCorrect;
+            event.commit();
+        }
         return allCorrect; // Return overall correctness
     }
 
@@ -615,11 +751,11 @@ class Sudoku extends Frame implements ActionListener {
         public void run() {
             // Reset any previous error highlights before checking
             EventQueue.invokeLater(() -> {
-                 for (int row = 0; row < SIZE; row++) {
-                     for (int col = 0; col < SIZE; col++) {
+                 for (int row = 0; row < size; row++) {
+                     for (int col = 0; col < size; col++) {
                           // Only reset color if it was an editable cell initially
                           if (sudoku[row][col] == 0) {
-                             cells[row][col].setForeground(Color.BLACK);
+                             grid.setCellForeground(row, col, Color.BLACK);
                           }
                      }
                  }
@@ -629,14 +765,14 @@ class Sudoku extends Frame implements ActionListener {
             // Give the UI a moment to reset colors before checking
             try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); return; }
 
-            final boolean isCorrect = checkUserSolution(); // Check solution
-
-            // Use EventQueue to show dialog and update UI from this thread
+            // The grid model belongs to the EDT, so check and report from there
             EventQueue.invokeLater(() -> {
+                boolean isCorrect = checkUserSolution(); // Check solution
                 if (isCorrect) {
                     showDialog("Correct Solution!"); // Show success dialog
                     setAllCellsEditable(false); // Lock correct board
                     setButtonStates(false); // Disable Check/Solve after correct
+                    setReplayControlsEnabled(false); // Nothing is running
                     resetButton.setEnabled(true); // Keep Reset enabled
                     endButton.setEnabled(true); // Keep End enabled
                 } else {
@@ -661,11 +797,23 @@ class Sudoku extends Frame implements ActionListener {
 
     // Enable or disable buttons (useful during solving)
     private void setButtonStates(boolean enabled) {
-         checkButton.setEnabled(enabled);
+         boolean ready = enabled && puzzleThread == null; // Nothing to check or solve while the puzzle is made
+         checkButton.setEnabled(ready);
          resetButton.setEnabled(enabled);
-         solutionButton.setEnabled(enabled);
+         solutionButton.setEnabled(ready);
          endButton.setEnabled(true); // Keep End always enabled
          speedField.setEnabled(enabled);
+         solverChoice.setEnabled(enabled);
+         setReplayControlsEnabled(false); // Enabled again while a solve or replay is open
+         if (!enabled) pauseButton.setEnabled(true); // A running solve can be paused
+         pauseButton.setLabel("Pause");
+    }
+
+    // Print the counters on exit when started with --stats
+    private void reportStats() {
+        if (!printStats) return;
+        System.out.println(pool); // How often Reset found a puzzle ready
+        System.out.println(SolverMetrics.INSTANCE); // How hard the engines worked (also over JMX)
     }
 
     // Action listener for buttons
@@ -683,14 +831,71 @@ class Sudoku extends Frame implements ActionListener {
         } else if (source == solutionButton) {
             stopSolverThread(); // Stop any previous solve attempt
             startSolverVisualization(); // Start the step-by-step solution
+        } else if (source == pauseButton) {
+            togglePause(); // Pause or resume the running solve
+        } else if (source == stepButton) {
+            stepSolver(); // Advance a paused solve by one step
+        } else if (source == backButton) {
+            stepBack(); // Take the replay back by one step
         } else if (source == endButton) {
             stopSolverThread(); // Ensure thread stops
+            reportStats();
             dispose(); // Close the Sudoku window
             System.exit(0); // Ensure application exits cleanly
         }
     }
 
-    public static void main(String[] args) {
-        EventQueue.invokeLater(Sudoku::new); // Ensure GUI creation is on the EDT
+    public static void main(String[] args) throws Exception {
+        SolverMetrics.INSTANCE.register(); // Search and generation counters over JMX, in every mode
+        if (args.length > 0 && args[0].equals("--compare-order")) {
+            // Headless: compare search nodes of first-empty and MRV cell selection
+            CellOrderComparison.run(Arrays.copyOfRange(args, 1, args.length), System.out);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--generate")) {
+            // Headless: write a batch of generated puzzles
+            int status = BatchGenerator.run(args);
+            if (status != 0) System.exit(status);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--solve")) {
+            // Headless: solve a file of puzzles, one per line
+            int status = BatchSolver.run(args);
+            if (status != 0) System.exit(status);
+            return;
+        }
+        String libraryFile = null;
+        PuzzleStore library = null;
+        int size = SudokuBoard.SIZE;
+        boolean stats = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    // Reset draws from a puzzle store built with --generate N --format store
+                    case "--library": libraryFile = args[++i]; break;
+                    // Board of size x size cells: 4, 9, 16 or 25. On a 1-core machine, a 16x16
+                    // Expert puzzle takes up to 6 s to generate and a 25x25 one is not offered;
+                    // solving 25x25 Medium takes 0.2-20 s with Backtracking, 13-44 s with DLX
+                    case "--size":    size = Integer.parseInt(args[++i]); break;
+                    // Print pool and engine counters on exit
+                    case "--stats":   stats = true; break;
+                    default:          throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (!SudokuBoard.isValidSize(size) || size > MAX_SIZE) throw new IllegalArgumentException("Unsupported board size: " + size);
+            if (libraryFile != null && size != SudokuBoard.SIZE) {
+                throw new IllegalArgumentException("Puzzle libraries hold 9x9 puzzles only");
+            }
+            if (libraryFile != null) library = new PuzzleStore(Paths.get(libraryFile), false); // Arguments are valid
+        } catch (RuntimeException | IOException e) { // Missing value, bad number, unknown option or unusable library
+            String message = e.getMessage() == null ? e.toString() : e.getMessage();
+            System.err.println(e instanceof IOException ? "Cannot open puzzle library: " + message : message);
+            System.err.println("Usage: [--library FILE] [--size N] [--stats]");
+            System.exit(2);
+        }
+        PuzzleStore puzzles = library;
+        int boardSize = size;
+        boolean printStats = stats;
+        EventQueue.invokeLater(() -> new Sudoku(puzzles, boardSize, printStats)); // Ensure GUI creation is on the EDT
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,382 @@
+import java.util.Arrays;       // For clearing the state arrays
+
+// Constraint state for a Sudoku grid: the digits plus per-row, per-column and per-box bitmasks.
+// Bit (num - 1) of a mask is set when digit num is already used in that row, column or box,
+// so a placement test is a single AND instead of a scan of the cell's peers.
+// Empty cells are also kept in buckets by candidate count, so the most constrained cell
+// is found without rescanning the board.
+// The size is chosen per board: any N = B * B from 4 to 64, with B x B boxes. Masks are
+// longs, one bit per digit, and the row, column, box, peers and units of every cell are
+// tables shared by all boards of a size, so no operation divides or scans by N.
+class SudokuBoard {
+    static final int SIZE = 9;                          // Classic grid, the default size
+    static final int SUBGRID_SIZE = 3;                  // Box side of the classic grid
+    static final int CELLS = SIZE * SIZE;               // Cells of the classic grid
+    static final int MAX_SIZE = 64;                     // Digits must fit the bits of a long
+    static final String SYMBOLS =                       // Text form of the numbers 1..64
+            "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz@#$";
+
+    private static final Geometry[] GEOMETRIES = new Geometry[9]; // By box side, built on first use
+
+    private final int size;                             // Cells per row, column and box
+    private final int boxSize;                          // Rows (and columns) of one box
+    private final int cellCount;                        // size * size
+    private final long allDigits;                       // Mask with every digit bit set
+    private final Geometry geometry;                    // Shared tables for this size
+    private final int[] rowOf, colOf, boxOf;            // Row, column and box of each cell
+
+    private final int[] cells;                          // Digit per cell (row-major), 0 = empty
+    private final long[] rowMask;                       // Digits used in each row
+    private final long[] colMask;                       // Digits used in each column
+    private final long[] boxMask;                       // Digits used in each box
+    private int filled = 0;                             // Number of non-empty cells
+
+    // Empty cells bucketed by candidate count (doubly linked lists, -1 = end)
+    private final int[] count;                          // Candidate count of each empty cell
+    private final int[] bucketHead;                     // First cell with a given count
+    private final int[] next;
+    private final int[] prev;
+
+    SudokuBoard() {
+        this(SIZE);
+    }
+
+    // Empty board of size x size cells; size must be a square from 4 to 64
+    SudokuBoard(int size) {
+        if (!isValidSize(size)) throw new IllegalArgumentException("Unsupported board size: " + size);
+        this.size = size;
+        boxSize = (int) Math.round(Math.sqrt(size));
+        cellCount = size * size;
+        allDigits = size == 64 ? -1L : (1L << size) - 1;
+        geometry = geometry(boxSize);
+        rowOf = geometry.rowOf;
+        colOf = geometry.colOf;
+        boxOf = geometry.boxOf;
+        cells = new int[cellCount];
+        rowMask = new long[size];
+        colMask = new long[size];
+        boxMask = new long[size];
+        count = new int[cellCount];
+        bucketHead = new int[size + 1];
+        next = new int[cellCount];
+        prev = new int[cellCount];
+        clear();
+    }
+
+    // Sizes a board can have: squares of 2 to 8
+    static boolean isValidSize(int size) {
+        int box = (int) Math.round(Math.sqrt(size));
+        return box >= 2 && box * box == size && size <= MAX_SIZE;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int boxSize() {
+        return boxSize;
+    }
+
+    int cellCount() {
+        return cellCount;
+    }
+
+    // Mask with every digit bit set
+    long allDigits() {
+        return allDigits;
+    }
+
+    // The cells sharing a row, column or box with a cell
+    int[] peers(int cell) {
+        return geometry.peers[cell];
+    }
+
+    // The cells of each row, column and box (rows first, then columns, then boxes)
+    int[][] units() {
+        return geometry.units;
+    }
+
+    int rowOf(int cell) {
+        return rowOf[cell];
+    }
+
+    int colOf(int cell) {
+        return colOf[cell];
+    }
+
+    // Index of the box containing (row, col)
+    int boxOf(int row, int col) {
+        return boxOf[row * size + col];
+    }
+
+    // Bit used for a digit in the masks
+    static long bit(int num) {
+        return 1L << (num - 1);
+    }
+
+    int get(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    int get(int cell) {
+        return cells[cell];
+    }
+
+    boolean isEmpty(int row, int col) {
+        return cells[row * size + col] == 0;
+    }
+
+    boolean isEmpty(int cell) {
+        return cells[cell] == 0;
+    }
+
+    boolean isFull() {
+        return filled == cellCount;
+    }
+
+    // Check if it's safe to place a number: one AND against the combined masks
+    boolean isSafe(int row, int col, int num) {
+        return (usedMask(row * size + col) & bit(num)) == 0;
+    }
+
+    // Digits that can still go into (row, col), as a bitmask
+    long candidates(int row, int col) {
+        return candidates(row * size + col);
+    }
+
+    long candidates(int cell) {
+        return ~usedMask(cell) & allDigits;
+    }
+
+    private long usedMask(int cell) {
+        return rowMask[rowOf[cell]] | colMask[colOf[cell]] | boxMask[boxOf[cell]];
+    }
+
+    // First empty cell in row-major order, or -1 when the board is full
+    int firstEmpty() {
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cells[cell] == 0) return cell;
+        }
+        return -1;
+    }
+
+    // Empty cell with the fewest candidates, or -1 when the board is full.
+    // Ties go to the cell that entered its bucket last.
+    int mostConstrained() {
+        for (int k = 0; k <= size; k++) {
+            if (bucketHead[k] >= 0) return bucketHead[k];
+        }
+        return -1;
+    }
+
+    // Some empty cell with exactly k candidates, or -1 if there is none
+    int cellWithCount(int k) {
+        return bucketHead[k];
+    }
+
+    // Candidate count of an empty cell
+    int candidateCount(int cell) {
+        return count[cell];
+    }
+
+    // Place a number in an empty cell (caller must have checked isSafe)
+    void place(int row, int col, int num) {
+        place(row * size + col, num);
+    }
+
+    void place(int cell, int num) {
+        long b = bit(num);
+        unlink(cell);
+        for (int peer : geometry.peers[cell]) { // Peers that still had this digit lose a candidate
+            if (cells[peer] == 0 && (usedMask(peer) & b) == 0) {
+                move(peer, count[peer] - 1);
+            }
+        }
+        cells[cell] = num;
+        rowMask[rowOf[cell]] |= b;
+        colMask[colOf[cell]] |= b;
+        boxMask[boxOf[cell]] |= b;
+        filled++;
+    }
+
+    // Clear a cell, releasing its digit from the row, column and box masks
+    void remove(int row, int col) {
+        remove(row * size + col);
+    }
+
+    void remove(int cell) {
+        int num = cells[cell];
+        if (num == 0) return;
+        long b = bit(num);
+        cells[cell] = 0;
+        rowMask[rowOf[cell]] &= ~b;
+        colMask[colOf[cell]] &= ~b;
+        boxMask[boxOf[cell]] &= ~b;
+        filled--;
+        for (int peer : geometry.peers[cell]) { // Peers that regain the digit gain a candidate
+            if (cells[peer] == 0 && (usedMask(peer) & b) == 0) {
+                move(peer, count[peer] + 1);
+            }
+        }
+        link(cell, Long.bitCount(candidates(cell)));
+    }
+
+    // Empty the whole board
+    void clear() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(rowMask, 0);
+        Arrays.fill(colMask, 0);
+        Arrays.fill(boxMask, 0);
+        filled = 0;
+        Arrays.fill(bucketHead, -1);
+        for (int cell = cellCount - 1; cell >= 0; cell--) {
+            link(cell, size); // Keeps row-major order inside the bucket
+        }
+    }
+
+    // Load a grid of this board's size (0 = empty); returns false if the givens already conflict
+    boolean load(int[][] grid) {
+        clear();
+        boolean valid = true;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int num = grid[row][col];
+                if (num == 0) continue;
+                if (isSafe(row, col, num)) {
+                    place(row, col, num);
+                } else {
+                    valid = false; // Duplicate digit: leave the cell empty
+                }
+            }
+        }
+        return valid;
+    }
+
+    // Make this board an exact copy of another one of the same size, buckets included
+    void copyFrom(SudokuBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, cellCount);
+        System.arraycopy(other.rowMask, 0, rowMask, 0, size);
+        System.arraycopy(other.colMask, 0, colMask, 0, size);
+        System.arraycopy(other.boxMask, 0, boxMask, 0, size);
+        filled = other.filled;
+        System.arraycopy(other.count, 0, count, 0, cellCount);
+        System.arraycopy(other.bucketHead, 0, bucketHead, 0, size + 1);
+        System.arraycopy(other.next, 0, next, 0, cellCount);
+        System.arraycopy(other.prev, 0, prev, 0, cellCount);
+    }
+
+    // Copy the board digits into a grid
+    void copyTo(int[][] grid) {
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(cells, row * size, grid[row], 0, size);
+        }
+    }
+
+    // Parse a line of N * N symbols ('.' or '0' for blanks) into an N x N grid; returns null
+    // if it is malformed. N comes from the length: 81 characters give the classic grid.
+    static int[][] parse(String line) {
+        int n = (int) Math.round(Math.sqrt(line.length()));
+        if (n * n != line.length() || !isValidSize(n)) return null;
+        int[][] grid = new int[n][n];
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int num = SYMBOLS.indexOf(c) + 1;
+            if (num > 0 && num <= n) {
+                grid[i / n][i % n] = num;
+            } else if (c != '.' && c != '0') {
+                return null;
+            }
+        }
+        return grid;
+    }
+
+    // Text form of a number, '.' for 0
+    static char symbol(int num) {
+        return num == 0 ? '.' : SYMBOLS.charAt(num - 1);
+    }
+
+    // A grid as one line of symbols, the inverse of parse
+    static String format(int[][] grid) {
+        StringBuilder line = new StringBuilder(grid.length * grid.length);
+        for (int[] row : grid) {
+            for (int num : row) {
+                line.append(symbol(num));
+            }
+        }
+        return line.toString();
+    }
+
+    // --- Candidate-count buckets ---
+
+    private void link(int cell, int k) {
+        count[cell] = k;
+        prev[cell] = -1;
+        next[cell] = bucketHead[k];
+        if (bucketHead[k] >= 0) prev[bucketHead[k]] = cell;
+        bucketHead[k] = cell;
+    }
+
+    private void unlink(int cell) {
+        if (prev[cell] >= 0) {
+            next[prev[cell]] = next[cell];
+        } else {
+            bucketHead[count[cell]] = next[cell];
+        }
+        if (next[cell] >= 0) prev[next[cell]] = prev[cell];
+    }
+
+    private void move(int cell, int k) {
+        unlink(cell);
+        link(cell, k);
+    }
+
+    // --- Geometry shared by all boards of a size ---
+
+    private static synchronized Geometry geometry(int box) {
+        if (GEOMETRIES[box] == null) GEOMETRIES[box] = new Geometry(box);
+        return GEOMETRIES[box];
+    }
+
+    private static final class Geometry {
+        final int[] rowOf, colOf, boxOf;                // Per cell
+        final int[][] units;                            // The 3 * N rows, columns and boxes
+        final int[][] peers;                            // The 3N - 2B - 1 peers of each cell
+
+        Geometry(int box) {
+            int size = box * box;
+            int cells = size * size;
+            rowOf = new int[cells];
+            colOf = new int[cells];
+            boxOf = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                rowOf[cell] = cell / size;
+                colOf[cell] = cell % size;
+                boxOf[cell] = (rowOf[cell] / box) * box + colOf[cell] / box;
+            }
+
+            units = new int[3 * size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    units[i][j] = i * size + j;                                  // Row i
+                    units[size + i][j] = j * size + i;                           // Column i
+                    int row = (i / box) * box + j / box;
+                    int col = (i % box) * box + j % box;
+                    units[2 * size + i][j] = row * size + col;                   // Box i
+                }
+            }
+
+            peers = new int[cells][];
+            for (int cell = 0; cell < cells; cell++) {
+                int[] list = new int[2 * (size - 1) + (box - 1) * (box - 1)];
+                int n = 0;
+                for (int other = 0; other < cells; other++) {
+                    if (other != cell && (rowOf[other] == rowOf[cell] || colOf[other] == colOf[cell]
+                            || boxOf[other] == boxOf[cell])) {
+                        list[n++] = other;
+                    }
+                }
+                peers[cell] = list;
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+import java.awt.*;                    // Importing AWT package for GUI components
+import java.awt.event.*;              // For mouse, keyboard and resize handling
+import java.awt.font.GlyphVector;     // Cached digit layouts
+import java.awt.geom.Rectangle2D;     // Glyph bounds for centering
+import java.awt.image.BufferedImage;  // Off-screen buffer
+import java.util.Arrays;              // For initializing the cell colors
+
+// Single grid component replacing one TextField per cell. The cells live in plain arrays,
+// are painted into an off-screen buffer, and only the rectangle of a changed cell is
+// copied to the screen. Fonts and digit glyph layouts are built once per size change.
+// Handles selection (mouse, arrow keys) and digit input for editable cells itself.
+// All methods must be called on the EDT.
+class SudokuCanvas extends Canvas {
+    private static final long serialVersionUID = 1L;
+
+    private static final int THIN_LINE = 1;             // Line between cells
+    private static final int THICK_LINE = 4;            // Line between boxes
+    private static final Color LINE_COLOR = Color.DARK_GRAY;
+    private static final Color SELECTION_COLOR = new Color(30, 90, 200);
+
+    private final int size;                             // Cells per row and column
+    private final int boxRows, boxCols;                 // Dimensions of one box
+    private final int[] values;                         // Number per cell (row-major), 0 = empty
+    private final boolean[] editable;                   // Cell accepts keyboard input
+    private final boolean[] given;                      // Cell is part of the puzzle (bold font)
+    private final Color[] background;
+    private final Color[] foreground;
+    private int selected = -1;                          // Selected cell, -1 = none
+
+    // Layout and caches, rebuilt when the component is resized
+    private BufferedImage buffer;
+    private final int[] cellX, cellY;                   // Top-left corner of each column/row
+    private int cellSize;
+    private Font givenFont, userFont;
+    private GlyphVector[][] glyphs;                     // [0 = user, 1 = given][number]
+    private float[][] glyphX, glyphY;                   // Offsets centering each glyph in a cell
+
+    SudokuCanvas(int size, int boxRows, int boxCols) {
+        this.size = size;
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        int cells = size * size;
+        values = new int[cells];
+        editable = new boolean[cells];
+        given = new boolean[cells];
+        background = new Color[cells];
+        foreground = new Color[cells];
+        cellX = new int[size];
+        cellY = new int[size];
+        Arrays.fill(background, Color.WHITE);
+        Arrays.fill(foreground, Color.BLACK);
+        setFocusable(true);
+
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                buffer = null; // Rebuilt on the next paint
+                repaint();
+            }
+        });
+        addMouseListener(new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0) select(cell);
+                requestFocus();
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+    }
+
+    // --- Cell model ---
+
+    int getValue(int row, int col) {
+        return values[row * size + col];
+    }
+
+    void setValue(int row, int col, int num) {
+        int cell = row * size + col;
+        if (values[cell] == num) return;
+        values[cell] = num;
+        repaintCell(cell);
+    }
+
+    // Set number and colors together, repainting the cell once
+    void setCell(int row, int col, int num, Color bg, Color fg) {
+        int cell = row * size + col;
+        if (values[cell] == num && background[cell] == bg && foreground[cell] == fg) return;
+        values[cell] = num;
+        background[cell] = bg;
+        foreground[cell] = fg;
+        repaintCell(cell);
+    }
+
+    Color getCellBackground(int row, int col) {
+        return background[row * size + col];
+    }
+
+    void setCellBackground(int row, int col, Color color) {
+        int cell = row * size + col;
+        if (background[cell] == color) return;
+        background[cell] = color;
+        repaintCell(cell);
+    }
+
+    void setCellForeground(int row, int col, Color color) {
+        int cell = row * size + col;
+        if (foreground[cell] == color) return;
+        foreground[cell] = color;
+        repaintCell(cell);
+    }
+
+    boolean isEditable(int row, int col) {
+        return editable[row * size + col];
+    }
+
+    void setEditable(int row, int col, boolean value) {
+        editable[row * size + col] = value;
+    }
+
+    // Given cells are drawn in the bold font
+    void setGiven(int row, int col, boolean value) {
+        int cell = row * size + col;
+        if (given[cell] == value) return;
+        given[cell] = value;
+        repaintCell(cell);
+    }
+
+    // Select a cell and take keyboard focus
+    void selectCell(int row, int col) {
+        select(row * size + col);
+        requestFocus();
+    }
+
+    // --- Input ---
+
+    private void handleKey(KeyEvent e) {
+        int code = e.getKeyCode();
+        if (selected < 0) {
+            if (code == KeyEvent.VK_UP || code == KeyEvent.VK_DOWN || code == KeyEvent.VK_LEFT || code == KeyEvent.VK_RIGHT) {
+                select(0);
+            }
+            return;
+        }
+        int row = selected / size;
+        int col = selected % size;
+        switch (code) {
+            case KeyEvent.VK_UP:    select(((row + size - 1) % size) * size + col); return;
+            case KeyEvent.VK_DOWN:  select(((row + 1) % size) * size + col); return;
+            case KeyEvent.VK_LEFT:  select(row * size + (col + size - 1) % size); return;
+            case KeyEvent.VK_RIGHT: select(row * size + (col + 1) % size); return;
+            case KeyEvent.VK_BACK_SPACE:
+            case KeyEvent.VK_DELETE:
+            case KeyEvent.VK_SPACE:
+                if (editable[selected]) setCell(row, col, 0, background[selected], Color.BLACK);
+                return;
+            default:
+                int num = numberFor(e.getKeyChar());
+                if (num > 0 && editable[selected]) {
+                    setCell(row, col, num, background[selected], Color.BLACK); // Replaces any previous digit
+                }
+        }
+    }
+
+    // Number typed with a symbol key, or 0 if the key is not a valid symbol for this size.
+    // Letters may be typed in either case while the board needs no lower-case symbols.
+    private int numberFor(char c) {
+        int index = SudokuBoard.SYMBOLS.indexOf(c);
+        if (index < 0 && size <= SudokuBoard.SYMBOLS.indexOf('Z') + 1) {
+            index = SudokuBoard.SYMBOLS.indexOf(Character.toUpperCase(c));
+        }
+        return index >= 0 && index < size ? index + 1 : 0;
+    }
+
+    private void select(int cell) {
+        if (cell == selected) return;
+        int old = selected;
+        selected = cell;
+        if (old >= 0) repaintCell(old);
+        repaintCell(cell);
+    }
+
+    private int cellAt(int x, int y) {
+        int col = indexAt(cellX, x);
+        int row = indexAt(cellY, y);
+        return row < 0 || col < 0 ? -1 : row * size + col;
+    }
+
+    private int indexAt(int[] starts, int p) {
+        for (int i = 0; i < size; i++) {
+            if (p >= starts[i] && p < starts[i] + cellSize) return i;
+        }
+        return -1;
+    }
+
+    // --- Painting ---
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(size * 44 + (size / boxCols + 1) * THICK_LINE, size * 44 + (size / boxRows + 1) * THICK_LINE);
+    }
+
+    @Override
+    public void update(Graphics g) {
+        paint(g); // No background clear: the buffer covers everything
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        if (buffer == null) rebuildBuffer();
+        g.drawImage(buffer, 0, 0, null); // Clipped by AWT to the dirty rectangle
+    }
+
+    // Draw a changed cell into the buffer and schedule only its rectangle for the screen
+    private void repaintCell(int cell) {
+        if (buffer == null) {
+            repaint(); // Not laid out yet: the first full paint draws it
+            return;
+        }
+        Graphics2D g = buffer.createGraphics();
+        drawCell(g, cell);
+        g.dispose();
+        repaint(cellX[cell % size] - 1, cellY[cell / size] - 1, cellSize + 2, cellSize + 2);
+    }
+
+    // Recompute layout, fonts and glyphs for the current size and redraw every cell
+    private void rebuildBuffer() {
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = buffer.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        int linesX = (size / boxCols + 1) * THICK_LINE + (size - size / boxCols - 1) * THIN_LINE;
+        int linesY = (size / boxRows + 1) * THICK_LINE + (size - size / boxRows - 1) * THIN_LINE;
+        cellSize = Math.max(4, Math.min((width - linesX) / size, (height - linesY) / size));
+        int originX = (width - (cellSize * size + linesX)) / 2;
+        int originY = (height - (cellSize * size + linesY)) / 2;
+        layoutLines(cellX, originX, boxCols);
+        layoutLines(cellY, originY, boxRows);
+
+        // Fonts and glyph layouts depend only on the cell size
+        int fontSize = Math.max(6, cellSize * 11 / 20);
+        userFont = new Font("SansSerif", Font.PLAIN, fontSize);
+        givenFont = new Font("SansSerif", Font.BOLD, fontSize);
+        glyphs = new GlyphVector[2][size + 1];
+        glyphX = new float[2][size + 1];
+        glyphY = new float[2][size + 1];
+        for (int f = 0; f < 2; f++) {
+            Font font = f == 0 ? userFont : givenFont;
+            for (int num = 1; num <= size; num++) {
+                GlyphVector glyph = font.createGlyphVector(g.getFontRenderContext(), String.valueOf(SudokuBoard.symbol(num)));
+                Rectangle2D bounds = glyph.getVisualBounds();
+                glyphs[f][num] = glyph;
+                glyphX[f][num] = (float) ((cellSize - bounds.getWidth()) / 2 - bounds.getX());
+                glyphY[f][num] = (float) ((cellSize - bounds.getHeight()) / 2 - bounds.getY());
+            }
+        }
+
+        g.setColor(LINE_COLOR); // Lines are the gaps left between the cells
+        g.fillRect(0, 0, width, height);
+        for (int cell = 0; cell < size * size; cell++) {
+            drawCell(g, cell);
+        }
+        g.dispose();
+    }
+
+    // Place cells along one axis with thin lines inside boxes and thick lines between them
+    private void layoutLines(int[] starts, int origin, int box) {
+        int p = origin;
+        for (int i = 0; i < size; i++) {
+            p += i % box == 0 ? THICK_LINE : THIN_LINE;
+            starts[i] = p;
+            p += cellSize;
+        }
+    }
+
+    private void drawCell(Graphics2D g, int cell) {
+        int x = cellX[cell % size];
+        int y = cellY[cell / size];
+        g.setColor(background[cell]);
+        g.fillRect(x, y, cellSize, cellSize);
+        int num = values[cell];
+        if (num > 0) {
+            int f = given[cell] ? 1 : 0;
+            g.setColor(foreground[cell]);
+            g.drawGlyphVector(glyphs[f][num], x + glyphX[f][num], y + glyphY[f][num]);
+        }
+        if (cell == selected) {
+            g.setColor(SELECTION_COLOR);
+            g.drawRect(x, y, cellSize - 1, cellSize - 1);
+            g.drawRect(x + 1, y + 1, cellSize - 3, cellSize - 3);
+        }
+    }
+}
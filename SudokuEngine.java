@@ -0,0 +1,19 @@
+// Common shape of the solving engines: each one works in place on the SudokuBoard
+// it was created for and reports its search through a SolverListener.
+interface SudokuEngine {
+    void setListener(SolverListener listener);
+
+    // Fill the board; on success it holds the solution, otherwise the givens are left as they were
+    boolean solve();
+
+    // Report the progress of solve() to stats (null for none), for live display
+    default void setStats(SearchStats stats) {}
+
+    // Pause, single-step, resume or cancel the search from another thread
+    SearchControl getControl();
+
+    // Request the search to stop; solve() then returns false
+    default void cancel() {
+        getControl().cancel();
+    }
+}
@@ -0,0 +1,136 @@
+import jdk.jfr.Category;                // Java Flight Recorder event metadata
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder events for the game's phases, shown under "Sudoku" in JDK Mission
+// Control next to GC pauses and thread states. Each phase brackets its work with
+// begin() and end() and fills in the fields only if shouldCommit() says a recording
+// wants the event, so with no recording running an event is an allocation the JIT
+// removes and two checks. Record with -XX:StartFlightRecording or jcmd JFR.start.
+final class SudokuEvents {
+    private SudokuEvents() {
+    }
+
+    @Name("sudoku.Generate")
+    @Label("Puzzle Served")
+    @Category("Sudoku")
+    @Description("Reset filling the board with a new puzzle")
+    static class Generate extends Event {
+        @Label("Source")
+        @Description("library, pool, variant or generation")
+        String source;
+
+        @Label("Difficulty")
+        String difficulty;
+
+        @Label("Clues")
+        int clues;
+    }
+
+    @Name("sudoku.FillGrid")
+    @Label("Fill Grid")
+    @Category("Sudoku")
+    @Description("Backtracking fill of a random complete grid")
+    static class FillGrid extends Event {
+        @Label("Nodes")
+        long nodes;
+    }
+
+    @Name("sudoku.MakePuzzle")
+    @Label("Make Puzzle")
+    @Category("Sudoku")
+    @Description("Removing clues from a complete grid while the puzzle stays unique")
+    static class MakePuzzle extends Event {
+        @Label("Hardest Allowed")
+        String hardest;
+
+        @Label("Cells Removed")
+        int removed;
+
+        @Label("Clues")
+        int clues;
+    }
+
+    @Name("sudoku.Solve")
+    @Label("Solve")
+    @Category("Sudoku")
+    @Description("One run of a solving engine")
+    static class Solve extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Clues")
+        int clues;
+
+        @Label("Solved")
+        boolean solved;
+
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Guesses")
+        long guesses;
+
+        @Label("Backtracks")
+        long backtracks;
+
+        @Label("Propagations")
+        long propagations;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        // Commit with the outcome of the run if a recording wants it
+        void finish(String engine, int clues, boolean solved, long nodes, long guesses, long backtracks,
+                    long propagations, int maxDepth) {
+            if (!shouldCommit()) return;
+            this.engine = engine;
+            this.clues = clues;
+            this.solved = solved;
+            this.nodes = nodes;
+            this.guesses = guesses;
+            this.backtracks = backtracks;
+            this.propagations = propagations;
+            this.maxDepth = maxDepth;
+            commit();
+        }
+    }
+
+    @Name("sudoku.Check")
+    @Label("Check Solution")
+    @Category("Sudoku")
+    @Description("Checking the player's entries against the solution")
+    static class Check extends Event {
+        @Label("Filled Cells")
+        int filled;
+
+        @Label("Wrong Cells")
+        int wrong;
+
+        @Label("Correct")
+        boolean correct;
+    }
+
+    @Name("sudoku.Render")
+    @Label("Render Frame")
+    @Category("Sudoku")
+    @Description("One refresh of the grid from the solver's snapshot on the event thread")
+    static class Render extends Event {
+        @Label("Cells Changed")
+        int changed;
+
+        @Label("Replay Position")
+        int position;
+    }
+
+    // Givens on a board, for the events that report them
+    static int clues(SudokuBoard board) {
+        int clues = 0;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (!board.isEmpty(cell)) clues++;
+        }
+        return clues;
+    }
+}
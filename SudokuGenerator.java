@@ -0,0 +1,154 @@
+import java.util.SplittableRandom; // For random grids and removal order
+
+// Builds puzzles with exactly one solution: a random complete grid is filled by the
+// backtracking solver trying numbers in random order, then clues are removed in random
+// order and each removal is kept only if a bounded solution count still finds a single
+// solution. The board and the counting solver are reused for every removal, so nothing
+// is rebuilt between the checks. Works for every board size: all checks are mask
+// operations on the board, and the fill propagates singles as it goes.
+// For a requested difficulty, removals that would make the puzzle rate harder are put
+// back as well, and grids are drawn until the finished puzzle rates exactly as asked.
+class SudokuGenerator {
+    static final int MAX_ATTEMPTS = 1000;               // Grids tried for a requested difficulty
+
+    private final int cells;                            // Cells of the board
+    private final SudokuBoard board;                    // Grid being built, then thinned out
+    private final SudokuSolver filler;                  // Fills the empty board with a random grid
+    private final SudokuSolver counter;                 // Proves uniqueness after each removal
+    private final DifficultyRater rater = new DifficultyRater(); // Rates the puzzle while clues are removed
+    private final SplittableRandom rand;               // Own stream: the same seed gives the same puzzles
+    private final int[] order;                          // Cells in removal order
+
+    SudokuGenerator() {
+        this(new SplittableRandom());
+    }
+
+    SudokuGenerator(SplittableRandom rand) {
+        this(SudokuBoard.SIZE, rand);
+    }
+
+    // Generator of size x size puzzles
+    SudokuGenerator(int size, SplittableRandom rand) {
+        this.rand = rand;
+        board = new SudokuBoard(size);
+        cells = board.cellCount();
+        filler = new SudokuSolver(board);
+        filler.setRandom(rand);
+        counter = new SudokuSolver(board);
+        order = new int[cells];
+    }
+
+    // Fill solution with a random complete grid and puzzle with a unique puzzle for it.
+    // Returns the number of cells removed, which is less than cellsToRemove when no
+    // further clue can go without allowing a second solution.
+    int generate(int[][] puzzle, int[][] solution, int cellsToRemove) {
+        long start = System.nanoTime();
+        fillRandomGrid();   // Use backtracking to generate a complete valid Sudoku grid
+        board.copyTo(solution); // Save the fully filled solution for validation later
+        int removed = makePuzzle(cellsToRemove, Difficulty.EXPERT);
+        board.copyTo(puzzle);
+        SolverMetrics.INSTANCE.recordGeneration(System.nanoTime() - start);
+        return removed;
+    }
+
+    // Fill solution and puzzle with a unique puzzle of the requested difficulty, removing
+    // as many clues as the difficulty allows. Returns the difficulty of the puzzle, which
+    // differs from the requested one only if MAX_ATTEMPTS grids all missed it.
+    Difficulty generate(int[][] puzzle, int[][] solution, Difficulty difficulty) {
+        return generate(puzzle, solution, difficulty, 0);
+    }
+
+    // As above, but keeping at least minClues clues
+    Difficulty generate(int[][] puzzle, int[][] solution, Difficulty difficulty, int minClues) {
+        long start = System.nanoTime();
+        Difficulty rating = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && rating != difficulty; attempt++) {
+            fillRandomGrid();
+            board.copyTo(solution);
+            makePuzzle(cells - minClues, difficulty);
+            rating = rater.rate(board);
+        }
+        board.copyTo(puzzle);
+        SolverMetrics.INSTANCE.recordGeneration(System.nanoTime() - start);
+        return rating;
+    }
+
+    // Hardest difficulty worth requesting at a board size. A unique 4x4 puzzle falls to
+    // singles: MAX_ATTEMPTS grids never rate harder. Above 16x16 an Expert puzzle means a
+    // second-solution count at every removal that can guess for many minutes (one 25x25
+    // request ran past 15 minutes), while Easy to Hard take about a second.
+    static Difficulty hardestFor(int size) {
+        if (size <= 4) return Difficulty.EASY;
+        return size <= 16 ? Difficulty.EXPERT : Difficulty.HARD;
+    }
+
+    // The two steps of generate() on their own, for the benchmarks: fill solution with a
+    // random complete grid, and thin a complete grid out into a unique puzzle
+    void fillSolution(int[][] solution) {
+        fillRandomGrid();
+        board.copyTo(solution);
+    }
+
+    int makePuzzle(int[][] solution, int[][] puzzle, int cellsToRemove, Difficulty hardest) {
+        board.load(solution);
+        int removed = makePuzzle(cellsToRemove, hardest);
+        board.copyTo(puzzle);
+        return removed;
+    }
+
+    // Clear the board and fill it with a random complete grid
+    private void fillRandomGrid() {
+        SudokuEvents.FillGrid event = new SudokuEvents.FillGrid();
+        event.begin();
+        board.clear();
+        filler.search(); // Most constrained cell first, singles propagated, numbers in random order
+        if (event.shouldCommit()) {
+            event.nodes = filler.getNodeCount();
+            event.commit();
+        }
+    }
+
+    // Remove clues in random order, putting back any whose removal allows a second solution
+    // or makes the puzzle rate harder than hardest
+    private int makePuzzle(int cellsToRemove, Difficulty hardest) {
+        SudokuEvents.MakePuzzle event = new SudokuEvents.MakePuzzle();
+        event.begin();
+        for (int cell = 0; cell < cells; cell++) {
+            order[cell] = cell;
+        }
+        shuffle(order, cells);
+
+        int removed = 0;
+        for (int i = 0; i < cells && removed < cellsToRemove; i++) {
+            int cell = order[i];
+            int num = board.get(cell);
+            board.remove(cell);
+            // Below EXPERT the rater's techniques finish the puzzle, which already proves it unique
+            boolean keep = hardest == Difficulty.EXPERT
+                    ? counter.countSolutions(2) == 1
+                    : rater.rate(board).compareTo(hardest) <= 0;
+            if (keep) {
+                removed++; // Still unique and not too hard
+            } else {
+                board.place(cell, num); // Needed as a clue
+            }
+        }
+        if (event.shouldCommit()) {
+            event.hardest = hardest.toString();
+            event.removed = removed;
+            event.clues = SudokuEvents.clues(board);
+            event.commit();
+        }
+        return removed;
+    }
+
+    // Fisher-Yates shuffle of the first n entries
+    private void shuffle(int[] values, int n) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+import java.util.SplittableRandom;     // Random number order for restarting searches
+import java.util.function.Consumer;   // Receives solutions while enumerating
+
+// Headless backtracking solver working on a SudokuBoard. It has no AWT dependency:
+// progress is published through a SolverListener, so the same engine serves the
+// visualizer and batch callers.
+// At every search node naked and hidden singles are propagated to a fixpoint before
+// guessing; all placements go on a trail so a backtrack undoes them in one sweep.
+// The search is iterative: each depth level is one frame in preallocated arrays, so a
+// SearchControl can pause, single-step, resume or cancel it between any two steps.
+class SudokuSolver implements SudokuEngine {
+    // How the next cell to fill is chosen
+    enum CellOrder {
+        FIRST_EMPTY,        // First empty cell in row-major order
+        MOST_CONSTRAINED    // Empty cell with the fewest candidates (MRV)
+    }
+
+    // Outcome of a single step
+    private static final int RUNNING = 0;
+    private static final int SOLVED = 1;
+    private static final int FAILED = 2;
+
+    private final SudokuBoard board;                    // Constraint state being solved in place
+    private SolverListener listener = SolverListener.NONE; // Receives try/backtrack events
+    private CellOrder cellOrder = CellOrder.MOST_CONSTRAINED; // Cell selection strategy
+    private final SearchControl control;                // Pause/step/cancel requests from other threads
+    private SearchStats stats = null;                   // Live progress of solve(), if anyone watches
+    private boolean propagation = true;                 // Apply naked/hidden singles at every node
+    private SplittableRandom random = null;             // Try numbers in random order, null for ascending
+    private long nodes = 0;                             // Placements tried by the last solve
+    private long guesses = 0;                           // Tries made in cells with more than one candidate
+    private long propagations = 0;                      // Cells filled by propagation
+    private long backtracks = 0;                        // Tries taken back
+    private int maxDepth = 0;                           // Deepest frame reached
+
+    private final int[] trail;                          // Cells placed by the search, in order
+    private int trailSize = 0;
+
+    // Search frames, one per depth level (cells + 1 of them)
+    private final int[] frameCell;                      // Cell being filled
+    private final long[] frameMask;                     // Candidates not tried yet
+    private final int[] frameMark;                      // Trail size when the node was entered
+    private final int[] framePlaced;                    // Number currently tried, 0 = none
+    private final boolean[] frameGuess;                 // Cell had more than one candidate
+    private int depth = 0;                              // Current frame
+    private boolean entering = true;                    // Current frame still needs propagation and a cell
+
+    SudokuSolver(SudokuBoard board) {
+        this(board, new SearchControl());
+    }
+
+    // Solver obeying a control shared with other searches, so one request stops them all
+    SudokuSolver(SudokuBoard board, SearchControl control) {
+        this.board = board;
+        this.control = control;
+        int cells = board.cellCount();
+        trail = new int[cells];
+        frameCell = new int[cells + 1];
+        frameMask = new long[cells + 1];
+        frameMark = new int[cells + 1];
+        framePlaced = new int[cells + 1];
+        frameGuess = new boolean[cells + 1];
+    }
+
+    @Override
+    public void setListener(SolverListener listener) {
+        this.listener = listener == null ? SolverListener.NONE : listener;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    void setCellOrder(CellOrder cellOrder) {
+        this.cellOrder = cellOrder;
+    }
+
+    void setPropagation(boolean propagation) {
+        this.propagation = propagation;
+    }
+
+    // Try the candidates of each cell in an order drawn from random (null: ascending), so
+    // repeated searches of one puzzle explore different trees
+    void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public SearchControl getControl() {
+        return control;
+    }
+
+    // Number of placements tried by the last solve
+    long getNodeCount() {
+        return nodes;
+    }
+
+    // Tries made in cells with more than one candidate by the last solve
+    long getGuessCount() {
+        return guesses;
+    }
+
+    // Cells filled by propagation in the last solve
+    long getPropagationCount() {
+        return propagations;
+    }
+
+    // Tries taken back by the last solve
+    long getBacktrackCount() {
+        return backtracks;
+    }
+
+    // Deepest search level of the last solve
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public boolean solve() {
+        long start = System.nanoTime();
+        SudokuEvents.Solve event = new SudokuEvents.Solve();
+        event.begin();
+        int clues = event.isEnabled() ? SudokuEvents.clues(board) : 0;
+        if (stats != null) stats.start();
+        boolean solved = search();
+        publish();
+        if (stats != null) stats.finish();
+        SolverMetrics.INSTANCE.recordSolve(System.nanoTime() - start, solved);
+        event.finish(SolverType.BACKTRACKING.toString(), clues, solved, nodes, guesses, backtracks,
+                propagations, maxDepth);
+        return solved;
+    }
+
+    // The search of solve() without reporting it anywhere, for engines built on this one
+    // (they read the counts through the getters and report them as their own)
+    boolean search() {
+        reset();
+        int status = RUNNING;
+        while (status == RUNNING) {
+            if (!control.proceed()) { // Paused here, or stop was requested
+                undo(0); // Leave only the givens on the board
+                break;
+            }
+            status = step();
+        }
+        return status == SOLVED;
+    }
+
+    // Count the solutions of the board, stopping once limit are found (2 proves a puzzle is
+    // not unique). The board is left holding only what it held before. All search state is
+    // reused, so repeated calls on a board edited in between allocate nothing.
+    int countSolutions(int limit) {
+        int found = enumerate(limit, null);
+        publish();
+        return found;
+    }
+
+    // Same without reporting, showing each solution to onSolution (if not null) while the
+    // board holds it
+    int enumerate(int limit, Consumer<SudokuBoard> onSolution) {
+        reset();
+        int found = 0;
+        while (control.proceed()) {
+            int status = step();
+            if (status == FAILED) break;
+            if (status == SOLVED) {
+                if (onSolution != null) onSolution.accept(board);
+                if (++found >= limit) break;
+                undo(frameMark[depth]); // Treat the solution as a dead end and keep searching
+                if (leave() == FAILED) break;
+            }
+        }
+        undo(0);
+        return found;
+    }
+
+    private void reset() {
+        nodes = 0;
+        guesses = 0;
+        propagations = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        trailSize = 0;
+        depth = 0;
+        entering = true;
+    }
+
+    // One unit of work: enter a node and try its first number, try the next number,
+    // take back the number currently tried, or leave an exhausted node
+    private int step() {
+        if (entering) {
+            entering = false;
+            frameMark[depth] = trailSize;
+            if (propagation && !propagate()) {
+                undo(frameMark[depth]); // Contradiction: take back the deductions of this node
+                return leave();
+            }
+            int cell = cellOrder == CellOrder.FIRST_EMPTY ? board.firstEmpty() : board.mostConstrained();
+            if (cell < 0) {
+                return SOLVED; // No empty cells, solved!
+            }
+            frameCell[depth] = cell;
+            frameMask[depth] = board.candidates(cell);
+            frameGuess[depth] = Long.bitCount(frameMask[depth]) > 1;
+            framePlaced[depth] = 0;
+            if (stats != null) stats.enter(Long.bitCount(frameMask[depth]));
+        }
+
+        int cell = frameCell[depth];
+        int row = board.rowOf(cell);
+        int col = board.colOf(cell);
+        if (framePlaced[depth] != 0) { // The subtree below failed: backtrack
+            int num = framePlaced[depth];
+            framePlaced[depth] = 0;
+            board.remove(cell);
+            trailSize--;
+            backtracks++;
+            if (stats != null) stats.backtrack();
+            listener.onBacktrack(row, col, num);
+            return RUNNING;
+        }
+        long mask = frameMask[depth];
+        if (mask == 0) {
+            undo(frameMark[depth]); // No number worked for this cell
+            return leave();
+        }
+
+        long pick = random == null ? mask & -mask : randomBit(mask);
+        int num = Long.numberOfTrailingZeros(pick) + 1;
+        frameMask[depth] = mask & ~pick;
+        framePlaced[depth] = num;
+        board.place(cell, num);
+        trail[trailSize++] = cell;
+        nodes++;
+        if (frameGuess[depth]) guesses++;
+        if (stats != null) stats.tryBranch();
+        listener.onTry(row, col, num);
+        if (++depth > maxDepth) maxDepth = depth;
+        entering = true;
+        return RUNNING;
+    }
+
+    // One set bit of mask, chosen uniformly
+    private long randomBit(long mask) {
+        for (int k = random.nextInt(Long.bitCount(mask)); k > 0; k--) {
+            mask &= mask - 1;
+        }
+        return mask & -mask;
+    }
+
+    // Hand the counts of the finished search to the process-wide metrics
+    private void publish() {
+        SolverMetrics.INSTANCE.recordSearch(nodes, guesses, backtracks, propagations, maxDepth);
+    }
+
+    // Pop the current frame; the parent takes back its number on the next step
+    private int leave() {
+        if (depth == 0) return FAILED;
+        depth--;
+        return RUNNING;
+    }
+
+    // Fill naked and hidden singles until nothing changes; returns false on a contradiction
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Naked singles: cells with exactly one candidate
+            int cell;
+            while ((cell = board.cellWithCount(1)) >= 0) {
+                deduce(cell, Long.numberOfTrailingZeros(board.candidates(cell)) + 1);
+                changed = true;
+            }
+            if (board.cellWithCount(0) >= 0) return false; // Some cell has no candidate left
+
+            // Hidden singles: digits with only one possible cell in a unit
+            for (int[] unit : board.units()) {
+                long once = 0, twice = 0, placed = 0;
+                for (int c : unit) {
+                    if (board.isEmpty(c)) {
+                        long cand = board.candidates(c);
+                        twice |= once & cand;
+                        once |= cand;
+                    } else {
+                        placed |= SudokuBoard.bit(board.get(c));
+                    }
+                }
+                long missing = board.allDigits() & ~placed;
+                if ((once & missing) != missing) return false; // A digit has nowhere to go
+                for (long single = once & ~twice & missing; single != 0; single &= single - 1) {
+                    long b = single & -single;
+                    for (int c : unit) {
+                        if (board.isEmpty(c) && (board.candidates(c) & b) != 0) {
+                            deduce(c, Long.numberOfTrailingZeros(b) + 1);
+                            changed = true;
+                            break;
+                        }
+                    }
+                    // If an earlier single in this unit took the cell, the digit is lost;
+                    // the next pass reports that as a contradiction
+                }
+            }
+        }
+        return true;
+    }
+
+    // Place a deduced number and record it on the trail
+    private void deduce(int cell, int num) {
+        board.place(cell, num);
+        trail[trailSize++] = cell;
+        propagations++;
+        listener.onPropagate(board.rowOf(cell), board.colOf(cell), num);
+    }
+
+    // Remove every placement above the trail mark, newest first
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            int num = board.get(cell);
+            board.remove(cell);
+            if (!control.isCancelled()) listener.onBacktrack(board.rowOf(cell), board.colOf(cell), num);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+// Replays a SolverTrace into a BoardSnapshot, forwards or backwards, one event at a time
+// or by seeking. A seek starts from the nearest keyframe, so it never applies more than
+// KEYFRAME_INTERVAL events. Callers on different threads must synchronize on the player.
+class TracePlayer {
+    private final SolverTrace trace;
+    private final BoardSnapshot snapshot;               // Receives every cell change
+    private final int[] state;                          // Display state at the current position
+    private int position = 0;                           // Number of events applied
+
+    TracePlayer(SolverTrace trace, BoardSnapshot snapshot) {
+        this.trace = trace;
+        this.snapshot = snapshot;
+        state = new int[trace.cellCount()];
+    }
+
+    int position() {
+        return position;
+    }
+
+    int length() {
+        return trace.size();
+    }
+
+    boolean atEnd() {
+        return position == trace.size();
+    }
+
+    // Display state of a cell at the current position
+    int stateOf(int cell) {
+        return state[cell];
+    }
+
+    // Apply the next event and return it
+    int stepForward() {
+        int event = trace.event(position++);
+        set(SolverTrace.cellOf(event), SolverTrace.apply(event));
+        return event;
+    }
+
+    // Take back the last applied event and return it
+    int stepBack() {
+        int event = trace.event(--position);
+        set(SolverTrace.cellOf(event), SolverTrace.revert(event));
+        return event;
+    }
+
+    // Move to any position between 0 and length()
+    void seek(int target) {
+        target = Math.max(0, Math.min(target, trace.size()));
+        int k = target / SolverTrace.KEYFRAME_INTERVAL;
+        int keyframeDistance = target - k * SolverTrace.KEYFRAME_INTERVAL;
+        if (Math.abs(target - position) > keyframeDistance) {
+            // Closer from the keyframe than from here: restore it first
+            int[] keyframe = trace.keyframe(k);
+            for (int cell = 0; cell < state.length; cell++) {
+                set(cell, keyframe[cell]);
+            }
+            position = k * SolverTrace.KEYFRAME_INTERVAL;
+        }
+        while (position < target) stepForward();
+        while (position > target) stepBack();
+    }
+
+    private void set(int cell, int value) {
+        if (state[cell] == value) return;
+        state[cell] = value;
+        snapshot.setCell(cell, value);
+    }
+}
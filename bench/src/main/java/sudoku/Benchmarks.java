@@ -0,0 +1,23 @@
+package sudoku;
+
+import org.openjdk.jmh.profile.GCProfiler;      // Allocation rate next to every score
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;                        // For the pass-through options
+
+// Entry point of benchmarks.jar: the usual JMH command line with the GC profiler added,
+// so every score comes with gc.alloc.rate and gc.alloc.rate.norm (bytes per operation)
+public class Benchmarks {
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-h") || Arrays.asList(args).contains("-l")) {
+            org.openjdk.jmh.Main.main(args); // Help and listing need no run
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
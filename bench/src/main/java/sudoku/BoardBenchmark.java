@@ -0,0 +1,77 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// The placement safety check and the board updates every engine is built on, on the
+// first puzzle of the easy corpus (about half the cells filled), in nanoseconds per
+// check and per sweep over the empty cells.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private static final int SIZE = SudokuBoard.SIZE;
+    private static final int CHECKS = SIZE * SIZE * SIZE;
+
+    private final SudokuBoard board = new SudokuBoard();
+    private int[] empty;                                // Empty cells of the puzzle
+    private int[] fits;                                 // A digit that fits each of them
+
+    @Setup
+    public void setup() {
+        board.load(Corpus.load("easy")[0]);
+        int n = 0;
+        for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+            if (board.isEmpty(cell)) n++;
+        }
+        empty = new int[n];
+        fits = new int[n];
+        n = 0;
+        for (int cell = 0; cell < SudokuBoard.CELLS; cell++) {
+            if (!board.isEmpty(cell)) continue;
+            empty[n] = cell;
+            fits[n++] = Long.numberOfTrailingZeros(board.candidates(cell)) + 1; // Bit d - 1 stands for digit d
+        }
+    }
+
+    // isSafe for every digit in every cell
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public void isSafe(Blackhole blackhole) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                for (int num = 1; num <= SIZE; num++) {
+                    blackhole.consume(board.isSafe(row, col, num));
+                }
+            }
+        }
+    }
+
+    // Place a digit in each empty cell, pick the next cell and take the digit back again,
+    // as a search step and its undo
+    @Benchmark
+    public int placeAndRemove() {
+        int sum = 0;
+        for (int i = 0; i < empty.length; i++) {
+            board.place(empty[i], fits[i]);
+            sum += board.candidateCount(board.mostConstrained());
+            board.remove(empty[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,35 @@
+package sudoku;
+
+import java.io.BufferedReader;                  // Reads the bundled lists
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+// Puzzle lists bundled under corpora/, one 81-character puzzle per line ('.' = empty):
+// easy (generated, seed 20240101), 17-clue (minimal puzzles) and hardest (well-known
+// hard puzzles, including Inkala's and Easter Monster)
+final class Corpus {
+    private Corpus() {
+    }
+
+    static int[][][] load(String name) {
+        InputStream in = Corpus.class.getResourceAsStream("/corpora/" + name + ".txt");
+        if (in == null) throw new IllegalArgumentException("No corpus named " + name);
+        ArrayList<int[][]> puzzles = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                int[][] grid = SudokuBoard.parse(line.trim());
+                if (grid == null) throw new IllegalStateException("Bad line in corpus " + name + ": " + line);
+                puzzles.add(grid);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return puzzles.toArray(new int[0][][]);
+    }
+}
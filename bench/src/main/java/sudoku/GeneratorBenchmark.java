@@ -0,0 +1,67 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The two steps of puzzle generation on their own and together: filling a random
+// complete grid (fillGrid), thinning a fixed grid out into a unique puzzle of at most a
+// difficulty (makePuzzle), and both with retries until the difficulty matches (generate)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+    private final SudokuGenerator generator = new SudokuGenerator(new SplittableRandom(42)); // Fixed seed: same work every run
+    private final int[][] grid = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+    private final int[][] solution = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+    private final int[][] puzzle = new int[SudokuBoard.SIZE][SudokuBoard.SIZE];
+
+    // Difficulty for the benchmarks that take one, so fillGrid runs only once
+    @State(Scope.Thread)
+    public static class Target {
+        @Param({"EASY", "HARD", "EXPERT"})              // Difficulty names
+        public String difficulty;
+
+        Difficulty value;
+
+        @Setup
+        public void setup() {
+            value = Difficulty.valueOf(difficulty);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        generator.fillSolution(solution); // The grid makePuzzle thins out every time
+    }
+
+    @Benchmark
+    public int[][] fillGrid() {
+        generator.fillSolution(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public int makePuzzle(Target target) {
+        return generator.makePuzzle(solution, puzzle, SudokuBoard.CELLS, target.value);
+    }
+
+    @Benchmark
+    public Difficulty generate(Target target) {
+        return generator.generate(puzzle, grid, target.value);
+    }
+}
@@ -0,0 +1,49 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Full solves over each corpus with each engine. One operation loads the next puzzle of
+// the corpus into a reused board and solves it, so the score is puzzles per second.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"easy", "17-clue", "hardest"})
+    public String corpus;
+
+    @Param({"BACKTRACKING", "DANCING_LINKS"})          // SolverType names
+    public String solver;
+
+    private int[][][] puzzles;
+    private final SudokuBoard board = new SudokuBoard();
+    private SudokuEngine engine;
+    private int next = 0;                               // Next puzzle of the corpus
+
+    @Setup
+    public void setup() {
+        puzzles = Corpus.load(corpus);
+        engine = SolverType.valueOf(solver).create(board);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        int[][] puzzle = puzzles[next];
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return board.load(puzzle) && engine.solve();
+    }
+}